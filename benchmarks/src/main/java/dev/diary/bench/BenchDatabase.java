@@ -0,0 +1,94 @@
+package dev.diary.bench;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.dao.UserDAO;
+import dev.diary.db.DatabaseConnection;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeds an embedded H2 database (MySQL mode) through the app's own DAOs. Point the benchmarks
+// at a real server instead with -jvmArgsAppend "-Ddiary.db.url=jdbc:mysql://..."
+final class BenchDatabase {
+    private static final String[] WORDS = {
+            "morning", "coffee", "walk", "rain", "work", "meeting", "friend", "dinner", "book", "music",
+            "garden", "train", "tired", "happy", "quiet", "letter", "river", "holiday", "plan", "dream"
+    };
+
+    static {
+        setIfAbsent("diary.db.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        setIfAbsent("diary.db.user", "sa");
+        setIfAbsent("diary.db.password", "");
+    }
+
+    private BenchDatabase() {}
+
+    // A fresh user with `entries` entries about three hours apart, ending now; returns its id
+    static Long seedUser(int entries, int contentLength) throws Exception {
+        User user = new UserDAO().save(new User("bench-" + System.nanoTime(), "unused", "bench-" + System.nanoTime() + "@example.com"));
+        DiaryEntryDAO dao = new DiaryEntryDAO();
+        Random random = new Random(42);
+        EntryMood[] moods = EntryMood.values();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        List<DiaryEntry> batch = new ArrayList<>(1000);
+        for (int i = 0; i < entries; i++) {
+            DiaryEntry entry = new DiaryEntry("Entry " + i + " " + word(random), text(random, contentLength),
+                    user.getId(), moods[random.nextInt(moods.length)]);
+            entry.setCreatedAt(now.minusHours(3L * i));
+            entry.setUpdatedAt(entry.getCreatedAt());
+            batch.add(entry);
+            if (batch.size() == 1000) {
+                dao.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            dao.saveAll(batch);
+        }
+        return user.getId();
+    }
+
+    static List<DiaryEntry> entries(int count, int contentLength) {
+        Random random = new Random(42);
+        EntryMood[] moods = EntryMood.values();
+        LocalDateTime now = LocalDateTime.of(2024, 12, 31, 12, 0);
+        List<DiaryEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DiaryEntry entry = new DiaryEntry("Entry " + i + " " + word(random), text(random, contentLength),
+                    1L, moods[random.nextInt(moods.length)]);
+            entry.setId((long) i + 1);
+            entry.setCreatedAt(now.minusHours(3L * i));
+            entry.setUpdatedAt(entry.getCreatedAt());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(word(random)).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return text.substring(0, length);
+    }
+
+    static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    static void shutdown() {
+        DatabaseConnection.shutdown();
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
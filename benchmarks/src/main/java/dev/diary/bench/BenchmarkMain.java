@@ -0,0 +1,33 @@
+package dev.diary.bench;
+
+import org.openjdk.jmh.Main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// JMH's own launcher, except that results are also written as JSON under results/ unless the
+// command line already picks a result format, so runs can be compared later
+public final class BenchmarkMain {
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff") && !listsOnly(arguments)) {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            arguments.addAll(List.of("-rf", "json", "-rff", results.resolve("jmh-" + stamp + ".json").toString()));
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+
+    private static boolean listsOnly(List<String> arguments) {
+        return arguments.contains("-h") || arguments.contains("-l") || arguments.contains("-lp")
+                || arguments.contains("-lprof") || arguments.contains("-lrf");
+    }
+}
@@ -0,0 +1,60 @@
+package dev.diary.bench;
+
+import dev.diary.crypto.EntryCipher;
+import dev.diary.crypto.EntryKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of sealing and opening one entry's content at typical diary sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+    @Param({"1024", "4096", "16384"})
+    private int contentLength;
+
+    private SecretKey key;
+    private String content;
+    private String stored;
+
+    @Setup
+    public void setUp() throws Exception {
+        key = EntryKeys.newContentKey();
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(contentLength);
+        while (text.length() < contentLength) {
+            text.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(6) == 0) {
+                text.append(' ');
+            }
+        }
+        content = text.substring(0, contentLength);
+        stored = EntryCipher.encrypt(key, 1L, content);
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return EntryCipher.encrypt(key, 1L, content);
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return EntryCipher.decrypt(key, 1L, stored);
+    }
+}
@@ -0,0 +1,62 @@
+package dev.diary.bench;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Row mapping over a whole account: full entries into a list, summaries (no content column),
+// and full entries streamed through a callback without holding the list
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoMappingBenchmark {
+    @Param({"1000", "20000"})
+    private int entries;
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private Long userId;
+
+    @Setup
+    public void setUp() throws Exception {
+        userId = BenchDatabase.seedUser(entries, 1500);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchDatabase.shutdown();
+    }
+
+    @Benchmark
+    public List<DiaryEntry> findByUserId() throws Exception {
+        return dao.findByUserId(userId);
+    }
+
+    @Benchmark
+    public List<DiaryEntrySummary> findSummariesByUserId() throws Exception {
+        return dao.findSummariesByUserId(userId);
+    }
+
+    @Benchmark
+    public void forEachByUserId(Blackhole blackhole) throws Exception {
+        dao.<RuntimeException>forEachByUserId(userId, blackhole::consume);
+    }
+}
@@ -0,0 +1,85 @@
+package dev.diary.bench;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.export.ExportProgressListener;
+import dev.diary.export.ExportResult;
+import dev.diary.export.JsonlExporter;
+import dev.diary.export.MemoryFileFormat;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+// Text produced per entry: memory files, the JSONL archive (end to end from the database) and
+// the strings a list cell shows after a reload
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormattingBenchmark {
+    @Param({"5000"})
+    private int entries;
+
+    private List<DiaryEntry> entryList;
+    private JsonlExporter jsonlExporter;
+    private Long userId;
+    private Path target;
+
+    @Setup
+    public void setUp() throws Exception {
+        entryList = BenchDatabase.entries(entries, 1500);
+        userId = BenchDatabase.seedUser(entries, 1500);
+        jsonlExporter = new JsonlExporter(new DiaryEntryDAO(), UnaryOperator.identity());
+        target = Files.createTempDirectory("diary-bench").resolve("entries.jsonl");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(target.getParent());
+        BenchDatabase.shutdown();
+    }
+
+    @Benchmark
+    public void renderMemoryFiles(Blackhole blackhole) {
+        for (DiaryEntry entry : entryList) {
+            blackhole.consume(MemoryFileFormat.fileName(entry));
+            blackhole.consume(MemoryFileFormat.render(entry));
+        }
+    }
+
+    @Benchmark
+    public ExportResult exportJsonl() throws Exception {
+        return jsonlExporter.export(userId, target, ExportProgressListener.NONE);
+    }
+
+    // Fresh summaries each time, as after a list reload, so the date is formatted once per cell
+    @Benchmark
+    public void cellText(Blackhole blackhole) {
+        for (DiaryEntry entry : entryList) {
+            DiaryEntrySummary summary = DiaryEntrySummary.of(entry);
+            blackhole.consume(summary.getTitle());
+            blackhole.consume(summary.getDisplayDate());
+            blackhole.consume(summary.getMood());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package dev.diary.bench;
+
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.timeline.MoodTimeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// MoodTimeline against the List<DiaryEntry> the app used to load for the same questions
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoodTimelineBenchmark {
+    @Param({"1000", "50000"})
+    private int entries;
+
+    private final LocalDate today = LocalDate.of(2024, 12, 31);
+    private List<DiaryEntry> entryList;
+    private MoodTimeline timeline;
+    private LocalDate from;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        EntryMood[] moods = EntryMood.values();
+        entryList = new ArrayList<>(entries);
+        // About three entries a day, ending today
+        for (int i = 0; i < entries; i++) {
+            LocalDateTime createdAt = today.atTime(12, 0).minusHours(i * 8L);
+            DiaryEntry entry = new DiaryEntry("Entry " + i, "Some text for entry " + i, 1L, moods[random.nextInt(moods.length)]);
+            entry.setId((long) i + 1);
+            entry.setCreatedAt(createdAt);
+            entryList.add(entry);
+        }
+        timeline = buildTimeline();
+        from = today.minusDays(364);
+    }
+
+    @Benchmark
+    public int countLastYearTimeline() {
+        return timeline.count(from, today, EntryMood.HAPPY);
+    }
+
+    @Benchmark
+    public int countLastYearList() {
+        int count = 0;
+        for (DiaryEntry entry : entryList) {
+            LocalDate day = entry.getCreatedAt().toLocalDate();
+            if (entry.getMood() == EntryMood.HAPPY && !day.isBefore(from) && !day.isAfter(today)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public byte[] heatmapLastYearTimeline() {
+        return timeline.dominantMoods(from, today);
+    }
+
+    @Benchmark
+    public byte[] heatmapLastYearList() {
+        int dayCount = (int) ChronoUnit.DAYS.between(from, today) + 1;
+        int[][] counts = new int[dayCount][EntryMood.values().length];
+        for (DiaryEntry entry : entryList) {
+            long offset = ChronoUnit.DAYS.between(from, entry.getCreatedAt().toLocalDate());
+            if (offset >= 0 && offset < dayCount) {
+                counts[(int) offset][entry.getMood().ordinal()]++;
+            }
+        }
+        byte[] cells = new byte[dayCount];
+        for (int d = 0; d < dayCount; d++) {
+            int best = -1;
+            for (int m = 0; m < counts[d].length; m++) {
+                if (counts[d][m] > 0 && (best < 0 || counts[d][m] > counts[d][best])) {
+                    best = m;
+                }
+            }
+            cells[d] = (byte) best;
+        }
+        return cells;
+    }
+
+    // Oldest first, the order the timeline query returns rows in
+    @Benchmark
+    public MoodTimeline buildTimeline() {
+        MoodTimeline built = new MoodTimeline(entries);
+        for (int i = entryList.size() - 1; i >= 0; i--) {
+            DiaryEntry entry = entryList.get(i);
+            built.add(entry.getId(), entry.getCreatedAt().toLocalDate(), entry.getMood());
+        }
+        return built;
+    }
+}
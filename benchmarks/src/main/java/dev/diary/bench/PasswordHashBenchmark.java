@@ -0,0 +1,55 @@
+package dev.diary.bench;
+
+import dev.diary.service.PasswordUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// One login's worth of hashing at the configured PBKDF2 cost; run with
+// -jvmArgsAppend -Ddiary.password.iterations=N to see how the cost scales
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private String pbkdf2Hash;
+    private String legacyHash;
+
+    @Setup
+    public void setUp() throws Exception {
+        pbkdf2Hash = PasswordUtils.hashPassword(PASSWORD);
+        legacyHash = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(PASSWORD.getBytes()));
+    }
+
+    @Benchmark
+    public String hashPassword() throws Exception {
+        return PasswordUtils.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() throws Exception {
+        return PasswordUtils.verifyPassword(PASSWORD, pbkdf2Hash);
+    }
+
+    // What every login cost before hashes were upgraded
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean verifyLegacyPassword() throws Exception {
+        return PasswordUtils.verifyPassword(PASSWORD, legacyHash);
+    }
+}
@@ -0,0 +1,62 @@
+package dev.diary.bench;
+
+import dev.diary.model.DiaryEntry;
+import dev.diary.dao.Page;
+import dev.diary.service.DiaryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The newest entries by keyset page; should stay flat as the account grows, including deep pages
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecentEntriesBenchmark {
+    @Param({"1000", "50000"})
+    private int entries;
+
+    private DiaryService diaryService;
+    private Long userId;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        userId = BenchDatabase.seedUser(entries, 800);
+        diaryService = new DiaryService();
+        String cursor = null;
+        for (int skipped = 0; skipped < entries / 2; skipped += 50) {
+            cursor = diaryService.getEntriesPage(userId, cursor, 50).getNextCursor();
+        }
+        deepCursor = cursor;
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchDatabase.shutdown();
+    }
+
+    @Benchmark
+    public List<DiaryEntry> getRecentEntries() throws Exception {
+        return diaryService.getRecentEntries(userId, 20);
+    }
+
+    @Benchmark
+    public Page<DiaryEntry> pageFromMiddle() throws Exception {
+        return diaryService.getEntriesPage(userId, deepCursor, 20);
+    }
+}
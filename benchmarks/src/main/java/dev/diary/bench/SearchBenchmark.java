@@ -0,0 +1,68 @@
+package dev.diary.bench;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.search.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The three ways the app has searched an account: LIKE over full rows, LIKE returning
+// summaries, and the in-memory inverted index (built during setup, as after the first search)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1000", "20000"})
+    private int entries;
+
+    @Param({"walk", "holiday garden"})
+    private String term;
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private SearchIndex index;
+    private Long userId;
+
+    @Setup
+    public void setUp() throws Exception {
+        userId = BenchDatabase.seedUser(entries, 1500);
+        index = new SearchIndex(dao);
+        index.search(userId, term, 200);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchDatabase.shutdown();
+    }
+
+    @Benchmark
+    public List<DiaryEntry> searchByContent() throws Exception {
+        return dao.searchByContent(userId, term);
+    }
+
+    @Benchmark
+    public List<DiaryEntrySummary> searchSummariesByContent() throws Exception {
+        return dao.searchSummariesByContent(userId, term);
+    }
+
+    @Benchmark
+    public List<DiaryEntrySummary> searchIndex() throws Exception {
+        return index.search(userId, term, 200);
+    }
+}
@@ -1,4 +1,5 @@
 package dev.diary;
+import dev.diary.db.DatabaseConnection;
 import dev.diary.gui.LoginView;
 import dev.diary.service.UserService;
 import javafx.application.Application;
@@ -20,6 +21,11 @@ public class DiaryKeeper extends Application {
         loginView.show();
     }
 
+    @Override
+    public void stop() {
+        DatabaseConnection.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,75 @@
+package dev.diary.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// AES-256-GCM for entry content. Stored text is "v1:" + Base64(iv | ciphertext | tag). The
+// owning user's id is bound in as associated data, so a ciphertext copied onto another
+// user's row fails to decrypt instead of showing up in their diary.
+public final class EntryCipher {
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // Cipher.getInstance walks the provider list; one instance per thread is re-initialised instead
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("AES/GCM is required by every JDK", ex);
+        }
+    });
+
+    private EntryCipher() {}
+
+    public static String encrypt(SecretKey key, long userId, String plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        RANDOM.nextBytes(iv);
+        byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
+
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(associatedData(userId));
+        // IV and ciphertext share one array, so the Base64 step is the only other allocation
+        byte[] sealed = new byte[IV_BYTES + cipher.getOutputSize(input.length)];
+        System.arraycopy(iv, 0, sealed, 0, IV_BYTES);
+        cipher.doFinal(input, 0, input.length, sealed, IV_BYTES);
+        return PREFIX + Base64.getEncoder().encodeToString(sealed);
+    }
+
+    public static String decrypt(SecretKey key, long userId, String stored) throws GeneralSecurityException {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            throw new GeneralSecurityException("Unrecognised encrypted content");
+        }
+        byte[] sealed;
+        try {
+            sealed = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new GeneralSecurityException("Corrupt encrypted content", ex);
+        }
+        if (sealed.length < IV_BYTES + TAG_BITS / 8) {
+            throw new GeneralSecurityException("Corrupt encrypted content");
+        }
+
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+        cipher.updateAAD(associatedData(userId));
+        byte[] plain = cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+    static byte[] associatedData(long userId) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(userId).array();
+    }
+
+    static Cipher cipher() {
+        return CIPHER.get();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.diary.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Each user has a random content key, stored wrapped (AES-GCM) under a key derived from their
+// password in the same PBKDF2 run as their password hash (see PasswordUtils). Logging in unwraps
+// it into this process-wide map; logging out forgets it. Because the password only wraps the
+// content key, entries never need re-encrypting.
+public final class EntryKeys {
+    private static final EntryKeys SHARED = new EntryKeys();
+    private static final String WRAP_PREFIX = "v2";
+    private static final int IV_BYTES = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<Long, SecretKey> unlocked = new ConcurrentHashMap<>();
+    private final Set<Long> encryptingUsers = ConcurrentHashMap.newKeySet();
+
+    public static EntryKeys shared() {
+        return SHARED;
+    }
+
+    // Null while the user is not logged in to this process
+    public SecretKey get(Long userId) {
+        return unlocked.get(userId);
+    }
+
+    public void unlock(Long userId, SecretKey key) {
+        unlocked.put(userId, key);
+    }
+
+    public void forget(Long userId) {
+        unlocked.remove(userId);
+        encryptingUsers.remove(userId);
+    }
+
+    // Mirrors the user's encrypt_entries setting for the length of the session
+    public void setEncryptNewEntries(Long userId, boolean encrypt) {
+        if (encrypt) {
+            encryptingUsers.add(userId);
+        } else {
+            encryptingUsers.remove(userId);
+        }
+    }
+
+    // The key to encrypt this user's new content with, or null to store it as plain text
+    public SecretKey encryptionKeyFor(Long userId) {
+        return encryptingUsers.contains(userId) ? unlocked.get(userId) : null;
+    }
+
+    public static SecretKey newContentKey() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256, RANDOM);
+        return generator.generateKey();
+    }
+
+    // v2$<iv | wrapped key | tag>, under the key derived alongside the user's password hash
+    public static String wrap(SecretKey contentKey, SecretKey wrappingKey, long userId) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        RANDOM.nextBytes(iv);
+
+        Cipher cipher = EntryCipher.cipher();
+        cipher.init(Cipher.ENCRYPT_MODE, wrappingKey, new GCMParameterSpec(128, iv));
+        cipher.updateAAD(EntryCipher.associatedData(userId));
+        byte[] wrapped = cipher.doFinal(contentKey.getEncoded());
+
+        byte[] sealed = Arrays.copyOf(iv, IV_BYTES + wrapped.length);
+        System.arraycopy(wrapped, 0, sealed, IV_BYTES, wrapped.length);
+        return WRAP_PREFIX + "$" + Base64.getEncoder().encodeToString(sealed);
+    }
+
+    public static SecretKey unwrap(String stored, SecretKey wrappingKey, long userId) throws GeneralSecurityException {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 2 || !WRAP_PREFIX.equals(parts[0])) {
+            throw new GeneralSecurityException("Unrecognised wrapped key");
+        }
+        try {
+            return unseal(Base64.getDecoder().decode(parts[1]), wrappingKey, userId);
+        } catch (IllegalArgumentException ex) {
+            throw new GeneralSecurityException("Corrupt wrapped key", ex);
+        }
+    }
+
+    private static SecretKey unseal(byte[] sealed, SecretKey wrappingKey, long userId) throws GeneralSecurityException {
+        Cipher cipher = EntryCipher.cipher();
+        cipher.init(Cipher.DECRYPT_MODE, wrappingKey, new GCMParameterSpec(128, sealed, 0, IV_BYTES));
+        cipher.updateAAD(EntryCipher.associatedData(userId));
+        return new SecretKeySpec(cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES), "AES");
+    }
+}
@@ -1,10 +1,22 @@
 package dev.diary.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CrudDAO<T, ID> {
     T save(T entity) throws Exception;
+
+    // One save per entity unless an implementation knows how to batch
+    default List<T> saveAll(Collection<T> entities) throws Exception {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
     Optional<T> findById(ID id) throws Exception;
     List<T> findAll() throws Exception;
     void update(T entity) throws Exception;
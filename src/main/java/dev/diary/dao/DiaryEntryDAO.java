@@ -1,25 +1,82 @@
 
 package dev.diary.dao;
 import dev.diary.db.DatabaseConnection;
+import dev.diary.db.SqlCatalog;
+import dev.diary.db.SqlStatement;
 import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
 import dev.diary.model.EntryMood;
+import dev.diary.model.MoodBucket;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
-    @Override
-    public DiaryEntry save(DiaryEntry entry) throws Exception {
-        String sql = """
+    // List rendering never needs the TEXT content column
+    private static final String SUMMARY_COLUMNS = "id, user_id, title, mood, created_at";
+    private static final int SNIPPET_LENGTH = 120;
+    private static final int BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 200;
+    private static final String SNIPPET_COLUMN = "SUBSTRING(content, 1, " + SNIPPET_LENGTH + ") AS snippet";
+
+    private static final SqlStatement INSERT = SqlCatalog.defineInsert("DiaryEntryDAO.insert", """
             INSERT INTO diary_entries (title, content, user_id, mood, is_encrypted, created_at, updated_at)
             VALUES (?, ?, ?, ?, ?, ?, ?)
-        """;
+        """);
+    private static final SqlStatement UPDATE = SqlCatalog.define("DiaryEntryDAO.update", """
+            UPDATE diary_entries
+            SET title = ?, content = ?, mood = ?, is_encrypted = ?, updated_at = ?
+            WHERE id = ? AND user_id = ?
+        """);
+    private static final SqlStatement DELETE = SqlCatalog.define("DiaryEntryDAO.delete",
+            "DELETE FROM diary_entries WHERE id = ?");
+    private static final SqlStatement DELETE_OWNED = SqlCatalog.define("DiaryEntryDAO.deleteOwned",
+            "DELETE FROM diary_entries WHERE id = ? AND user_id = ?");
+    private static final SqlStatement FIND_BY_ID = SqlCatalog.define("DiaryEntryDAO.findById",
+            "SELECT * FROM diary_entries WHERE id = ?");
+    private static final SqlStatement FIND_ALL = SqlCatalog.define("DiaryEntryDAO.findAll",
+            "SELECT * FROM diary_entries ORDER BY created_at DESC");
+    private static final SqlStatement FIND_BY_USER_ID = SqlCatalog.define("DiaryEntryDAO.findByUserId",
+            "SELECT * FROM diary_entries WHERE user_id = ? ORDER BY created_at DESC");
+    private static final SqlStatement FIND_BY_USER_ID_AND_MOOD = SqlCatalog.define("DiaryEntryDAO.findByUserIdAndMood",
+            "SELECT * FROM diary_entries WHERE user_id = ? AND mood = ? ORDER BY created_at DESC");
+    private static final SqlStatement SEARCH_BY_CONTENT = SqlCatalog.define("DiaryEntryDAO.searchByContent",
+            "SELECT * FROM diary_entries WHERE user_id = ? AND content LIKE ? ORDER BY created_at DESC");
+    private static final SqlStatement FOR_EACH_BY_USER_ID = SqlCatalog.define("DiaryEntryDAO.forEachByUserId",
+            "SELECT * FROM diary_entries WHERE user_id = ? ORDER BY created_at, id");
+    private static final SqlStatement FOR_EACH_MOOD_POINT = SqlCatalog.define("DiaryEntryDAO.forEachMoodPointByUserId",
+            "SELECT id, mood, created_at FROM diary_entries WHERE user_id = ? ORDER BY created_at, id");
+    private static final SqlStatement COUNT_BY_USER_ID = SqlCatalog.define("DiaryEntryDAO.countByUserId",
+            "SELECT COUNT(*) FROM diary_entries WHERE user_id = ?");
+    private static final SqlStatement EXISTS_BY_ID = SqlCatalog.define("DiaryEntryDAO.existsById",
+            "SELECT COUNT(*) FROM diary_entries WHERE id = ?");
+    private static final SqlStatement DAILY_MOOD_COUNTS = SqlCatalog.define("DiaryEntryDAO.findDailyMoodCounts",
+            "SELECT CAST(created_at AS DATE) AS entry_day, mood, COUNT(*) AS entry_count FROM diary_entries "
+                    + "WHERE user_id = ? GROUP BY CAST(created_at AS DATE), mood ORDER BY entry_day");
+    private static final SqlStatement FIND_SUMMARIES_BY_USER_ID = SqlCatalog.define("DiaryEntryDAO.findSummariesByUserId",
+            "SELECT " + SUMMARY_COLUMNS + " FROM diary_entries WHERE user_id = ? ORDER BY created_at DESC");
+    private static final SqlStatement FIND_SUMMARIES_BY_USER_ID_AND_MOOD = SqlCatalog.define("DiaryEntryDAO.findSummariesByUserIdAndMood",
+            "SELECT " + SUMMARY_COLUMNS + " FROM diary_entries WHERE user_id = ? AND mood = ? ORDER BY created_at DESC");
+    private static final SqlStatement FIND_SUMMARIES_CREATED_BETWEEN = SqlCatalog.define("DiaryEntryDAO.findSummariesCreatedBetween",
+            "SELECT " + SUMMARY_COLUMNS + " FROM diary_entries WHERE user_id = ? AND created_at >= ? AND created_at < ?");
+    private static final SqlStatement SEARCH_SUMMARIES_BY_CONTENT = SqlCatalog.define("DiaryEntryDAO.searchSummariesByContent",
+            "SELECT " + SUMMARY_COLUMNS + ", " + SNIPPET_COLUMN
+                    + " FROM diary_entries WHERE user_id = ? AND content LIKE ? ORDER BY created_at DESC");
+    private static final SqlStatement FIRST_PAGE = definePage("DiaryEntryDAO.findPageByUserId", "*", false);
+    private static final SqlStatement NEXT_PAGE = definePage("DiaryEntryDAO.findPageByUserIdAfter", "*", true);
+    private static final SqlStatement FIRST_SUMMARY_PAGE = definePage("DiaryEntryDAO.findSummaryPageByUserId", SUMMARY_COLUMNS, false);
+    private static final SqlStatement NEXT_SUMMARY_PAGE = definePage("DiaryEntryDAO.findSummaryPageByUserIdAfter", SUMMARY_COLUMNS, true);
 
+    @Override
+    public DiaryEntry save(DiaryEntry entry) throws Exception {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = INSERT.prepare(conn)) {
 
             pstmt.setString(1, entry.getTitle());
             pstmt.setString(2, entry.getContent());
@@ -41,12 +98,84 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
         }
     }
 
+    // Inserts in chunks of BATCH_SIZE rows, one transaction and one round trip per chunk.
+    // Chunks committed before a failure stay committed and are reported through PartialSaveException;
+    // the failing chunk is rolled back.
     @Override
-    public Optional<DiaryEntry> findById(Long id) throws Exception {
-        String sql = "SELECT * FROM diary_entries WHERE id = ?";
+    public List<DiaryEntry> saveAll(Collection<DiaryEntry> entries) throws SQLException {
+        List<DiaryEntry> saved = new ArrayList<>(entries.size());
+        if (entries.isEmpty()) {
+            return saved;
+        }
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = INSERT.prepare(conn)) {
+
+            conn.setAutoCommit(false);
+            List<DiaryEntry> chunk = new ArrayList<>(BATCH_SIZE);
+            try {
+                for (DiaryEntry entry : entries) {
+                    pstmt.setString(1, entry.getTitle());
+                    pstmt.setString(2, entry.getContent());
+                    pstmt.setLong(3, entry.getUserId());
+                    pstmt.setString(4, entry.getMood().name());
+                    pstmt.setBoolean(5, entry.isEncrypted());
+                    pstmt.setTimestamp(6, Timestamp.valueOf(entry.getCreatedAt()));
+                    pstmt.setTimestamp(7, Timestamp.valueOf(entry.getUpdatedAt()));
+                    pstmt.addBatch();
+                    chunk.add(entry);
+
+                    if (chunk.size() == BATCH_SIZE) {
+                        flushBatch(conn, pstmt, chunk);
+                        saved.addAll(chunk);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    flushBatch(conn, pstmt, chunk);
+                    saved.addAll(chunk);
+                }
+            } catch (Throwable ex) {
+                rollbackQuietly(conn, ex);
+                // The failing chunk may already have been handed ids it no longer owns
+                chunk.forEach(entry -> entry.setId(null));
+                if (ex instanceof SQLException sqlEx) {
+                    throw new PartialSaveException(saved, sqlEx);
+                }
+                throw ex;
+            }
+        }
+
+        return saved;
+    }
+
+    // A failed rollback must not mask the exception that caused it
+    private static void rollbackQuietly(Connection conn, Throwable cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackEx) {
+            cause.addSuppressed(rollbackEx);
+        }
+    }
+
+    private void flushBatch(Connection conn, PreparedStatement pstmt, List<DiaryEntry> chunk) throws SQLException {
+        pstmt.executeBatch();
+        // Keys come back in insertion order, one per batched row
+        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+            for (DiaryEntry entry : chunk) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Driver returned fewer generated keys than batched rows");
+                }
+                entry.setId(generatedKeys.getLong(1));
+            }
+        }
+        conn.commit();
+    }
+
+    @Override
+    public Optional<DiaryEntry> findById(Long id) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(conn)) {
 
             pstmt.setLong(1, id);
             ResultSet rs = pstmt.executeQuery();
@@ -61,12 +190,11 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
 
     @Override
     public List<DiaryEntry> findAll() throws Exception {
-        String sql = "SELECT * FROM diary_entries ORDER BY created_at DESC";
         List<DiaryEntry> entries = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = FIND_ALL.prepare(conn);
+             ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
                 entries.add(mapResultSetToEntry(rs));
@@ -78,14 +206,8 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
 
     @Override
     public void update(DiaryEntry entry) throws Exception {
-        String sql = """
-            UPDATE diary_entries 
-            SET title = ?, content = ?, mood = ?, is_encrypted = ?, updated_at = ?
-            WHERE id = ? AND user_id = ?
-        """;
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = UPDATE.prepare(conn)) {
 
             entry.setUpdatedAt(LocalDateTime.now());
 
@@ -103,21 +225,30 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
 
     @Override
     public void delete(Long id) throws Exception {
-        String sql = "DELETE FROM diary_entries WHERE id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = DELETE.prepare(conn)) {
 
             pstmt.setLong(1, id);
             pstmt.executeUpdate();
         }
     }
+
+    // Deletes only if the entry belongs to the user, mirroring the ownership check in update
+    public boolean deleteOwned(Long userId, Long id) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE_OWNED.prepare(conn)) {
+
+            pstmt.setLong(1, id);
+            pstmt.setLong(2, userId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
     public List<DiaryEntry> findByUserId(Long userId) throws SQLException {
-        String sql = "SELECT * FROM diary_entries WHERE user_id = ? ORDER BY created_at DESC";
         List<DiaryEntry> entries = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_BY_USER_ID.prepare(conn)) {
 
             pstmt.setLong(1, userId);
             ResultSet rs = pstmt.executeQuery();
@@ -130,12 +261,185 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
         return entries;
     }
 
+    // Streams every entry of the user, oldest first, through a forward-only result set that
+    // holds at most STREAM_FETCH_SIZE rows client-side, however long the history is
+    public <E extends Exception> void forEachByUserId(Long userId, RowCallback<DiaryEntry, E> callback) throws SQLException, E {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FOR_EACH_BY_USER_ID.prepare(conn)) {
+
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            pstmt.setLong(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(mapResultSetToEntry(rs));
+                }
+            }
+        }
+    }
+
+    // Narrow projection for the mood timeline, oldest first; the index on (user_id, created_at,
+    // id, mood, ...) answers it without touching the table rows
+    public void forEachMoodPointByUserId(Long userId, MoodPointCallback callback) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FOR_EACH_MOOD_POINT.prepare(conn)) {
+
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            pstmt.setLong(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(rs.getLong(1), EntryMood.valueOf(rs.getString(2)),
+                            rs.getTimestamp(3).toLocalDateTime());
+                }
+            }
+        }
+    }
+
+    public long countByUserId(Long userId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = COUNT_BY_USER_ID.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public boolean existsById(Long id) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = EXISTS_BY_ID.prepare(conn)) {
+
+            pstmt.setLong(1, id);
+            ResultSet rs = pstmt.executeQuery();
+
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    // One bucket per day that has entries, oldest first; the grouping runs in the database and
+    // reads only (user_id, created_at, mood), which idx_entries_user_created covers
+    public List<MoodBucket> findDailyMoodCounts(Long userId) throws SQLException {
+        List<MoodBucket> days = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DAILY_MOOD_COUNTS.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            LocalDate day = null;
+            int[] counts = null;
+            while (rs.next()) {
+                LocalDate rowDay = rs.getDate("entry_day").toLocalDate();
+                if (!rowDay.equals(day)) {
+                    if (day != null) {
+                        days.add(new MoodBucket(day, counts));
+                    }
+                    day = rowDay;
+                    counts = new int[EntryMood.values().length];
+                }
+                counts[EntryMood.valueOf(rs.getString("mood")).ordinal()] = rs.getInt("entry_count");
+            }
+            if (day != null) {
+                days.add(new MoodBucket(day, counts));
+            }
+        }
+
+        return days;
+    }
+
+    // Keyset pagination: the cursor is the last (created_at, id) of the previous page, so the
+    // query seeks straight to it instead of skipping rows like OFFSET would
+    public Page<DiaryEntry> findPageByUserId(Long userId, String cursor, int limit) throws SQLException {
+        return findPage(FIRST_PAGE, NEXT_PAGE, userId, cursor, limit, this::mapResultSetToEntry,
+                entry -> new PageCursor(entry.getCreatedAt(), entry.getId()));
+    }
+
+    public Page<DiaryEntrySummary> findSummaryPageByUserId(Long userId, String cursor, int limit) throws SQLException {
+        return findPage(FIRST_SUMMARY_PAGE, NEXT_SUMMARY_PAGE, userId, cursor, limit, rs -> mapResultSetToSummary(rs, false),
+                summary -> new PageCursor(summary.getCreatedAt(), summary.getId()));
+    }
+
+    public List<DiaryEntrySummary> findSummariesByUserId(Long userId) throws SQLException {
+        List<DiaryEntrySummary> summaries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_SUMMARIES_BY_USER_ID.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs, false));
+            }
+        }
+
+        return summaries;
+    }
+
+    // Entries created in [from, until), in no particular order; a range scan of idx_entries_user_created
+    public List<DiaryEntrySummary> findSummariesCreatedBetween(Long userId, LocalDateTime from, LocalDateTime until) throws SQLException {
+        List<DiaryEntrySummary> summaries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_SUMMARIES_CREATED_BETWEEN.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            pstmt.setTimestamp(2, Timestamp.valueOf(from));
+            pstmt.setTimestamp(3, Timestamp.valueOf(until));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs, false));
+            }
+        }
+
+        return summaries;
+    }
+
+    public List<DiaryEntrySummary> findSummariesByUserIdAndMood(Long userId, EntryMood mood) throws SQLException {
+        List<DiaryEntrySummary> summaries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_SUMMARIES_BY_USER_ID_AND_MOOD.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            pstmt.setString(2, mood.name());
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs, false));
+            }
+        }
+
+        return summaries;
+    }
+
+    public List<DiaryEntrySummary> searchSummariesByContent(Long userId, String searchTerm) throws SQLException {
+        List<DiaryEntrySummary> summaries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SEARCH_SUMMARIES_BY_CONTENT.prepare(conn)) {
+
+            pstmt.setLong(1, userId);
+            pstmt.setString(2, "%" + searchTerm + "%");
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs, true));
+            }
+        }
+
+        return summaries;
+    }
+
     public List<DiaryEntry> findByUserIdAndMood(Long userId, EntryMood mood) throws SQLException {
-        String sql = "SELECT * FROM diary_entries WHERE user_id = ? AND mood = ? ORDER BY created_at DESC";
         List<DiaryEntry> entries = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_BY_USER_ID_AND_MOOD.prepare(conn)) {
 
             pstmt.setLong(1, userId);
             pstmt.setString(2, mood.name());
@@ -150,11 +454,10 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
     }
 
     public List<DiaryEntry> searchByContent(Long userId, String searchTerm) throws SQLException {
-        String sql = "SELECT * FROM diary_entries WHERE user_id = ? AND content LIKE ? ORDER BY created_at DESC";
         List<DiaryEntry> entries = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = SEARCH_BY_CONTENT.prepare(conn)) {
 
             pstmt.setLong(1, userId);
             pstmt.setString(2, "%" + searchTerm + "%");
@@ -168,6 +471,61 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
         return entries;
     }
 
+    private <T> Page<T> findPage(SqlStatement firstPage, SqlStatement nextPage, Long userId, String cursor, int limit,
+                                 RowMapper<T> mapper, Function<T, PageCursor> cursorOf) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        List<T> items = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = (after == null ? firstPage : nextPage).prepare(conn)) {
+
+            int index = 1;
+            pstmt.setLong(index++, userId);
+            if (after != null) {
+                Timestamp createdAt = Timestamp.valueOf(after.getCreatedAt());
+                pstmt.setTimestamp(index++, createdAt);
+                pstmt.setTimestamp(index++, createdAt);
+                pstmt.setLong(index++, after.getId());
+            }
+            // One extra row tells us whether another page exists without a COUNT(*)
+            pstmt.setInt(index, limit + 1);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                items.add(mapper.map(rs));
+            }
+        }
+
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items.remove(limit);
+        return new Page<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    private static SqlStatement definePage(String name, String columns, boolean afterCursor) {
+        return SqlCatalog.define(name, afterCursor
+                ? "SELECT " + columns + " FROM diary_entries"
+                    + " WHERE user_id = ? AND (created_at < ? OR (created_at = ? AND id < ?))"
+                    + " ORDER BY created_at DESC, id DESC LIMIT ?"
+                : "SELECT " + columns + " FROM diary_entries WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT ?");
+    }
+
+    private DiaryEntrySummary mapResultSetToSummary(ResultSet rs, boolean withSnippet) throws SQLException {
+        return new DiaryEntrySummary(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("title"),
+                EntryMood.valueOf(rs.getString("mood")),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                withSnippet ? rs.getString("snippet") : null
+        );
+    }
+
     private DiaryEntry mapResultSetToEntry(ResultSet rs) throws SQLException {
         DiaryEntry entry = new DiaryEntry(
                 rs.getString("title"),
@@ -184,3 +542,4 @@ public class DiaryEntryDAO implements CrudDAO<DiaryEntry,Long>{
         return entry;
     }
 }
+
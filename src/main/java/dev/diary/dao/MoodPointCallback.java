@@ -0,0 +1,11 @@
+package dev.diary.dao;
+
+import dev.diary.model.EntryMood;
+
+import java.time.LocalDateTime;
+
+// Receives the three columns a mood timeline needs, without building an object per row
+@FunctionalInterface
+public interface MoodPointCallback {
+    void accept(long id, EntryMood mood, LocalDateTime createdAt);
+}
@@ -0,0 +1,23 @@
+package dev.diary.dao;
+
+import dev.diary.model.DiaryEntry;
+
+import java.sql.SQLException;
+import java.util.List;
+
+// Thrown by saveAll when a chunk fails after earlier chunks were committed. Those rows are in the
+// database with their ids set, so callers must still account for them.
+public class PartialSaveException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<DiaryEntry> saved;
+
+    public PartialSaveException(List<DiaryEntry> saved, SQLException cause) {
+        super(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+        this.saved = List.copyOf(saved);
+    }
+
+    public List<DiaryEntry> getSaved() {
+        return saved;
+    }
+}
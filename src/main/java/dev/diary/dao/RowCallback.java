@@ -0,0 +1,6 @@
+package dev.diary.dao;
+
+@FunctionalInterface
+public interface RowCallback<T, E extends Exception> {
+    void accept(T row) throws E;
+}
@@ -1,6 +1,9 @@
 package dev.diary.dao;
 
 import dev.diary.db.DatabaseConnection;
+import dev.diary.db.SqlCatalog;
+import dev.diary.db.SqlStatement;
+import dev.diary.model.Availability;
 import dev.diary.model.User;
 import dev.diary.model.UserRole;
 
@@ -11,16 +14,43 @@ import java.util.List;
 import java.util.Optional;
 
 public class UserDAO implements CrudDAO<User, Long> {
-
-    @Override
-    public User save(User user) throws Exception {
-        String sql = """
+    private static final SqlStatement INSERT = SqlCatalog.defineInsert("UserDAO.insert", """
             INSERT INTO users (username, password_hash, email, role, created_at, updated_at)
             VALUES (?, ?, ?, ?, ?, ?)
-        """;
+        """);
+    private static final SqlStatement UPDATE = SqlCatalog.define("UserDAO.update", """
+            UPDATE users
+            SET username = ?, password_hash = ?, email = ?, role = ?, updated_at = ?
+            WHERE id = ?
+        """);
+    private static final SqlStatement UPDATE_CREDENTIALS = SqlCatalog.define("UserDAO.updateCredentials",
+            "UPDATE users SET password_hash = ?, encryption_key = ? WHERE id = ?");
+    private static final SqlStatement UPDATE_ENCRYPT_ENTRIES = SqlCatalog.define("UserDAO.updateEncryptEntries",
+            "UPDATE users SET encrypt_entries = ? WHERE id = ?");
+    private static final SqlStatement DELETE = SqlCatalog.define("UserDAO.delete",
+            "DELETE FROM users WHERE id = ?");
+    private static final SqlStatement FIND_BY_ID = SqlCatalog.define("UserDAO.findById",
+            "SELECT * FROM users WHERE id = ?");
+    private static final SqlStatement FIND_ALL = SqlCatalog.define("UserDAO.findAll",
+            "SELECT * FROM users");
+    private static final SqlStatement FIND_BY_USERNAME = SqlCatalog.define("UserDAO.findByUsername",
+            "SELECT * FROM users WHERE username = ?");
+    // Both uniqueness checks for registration in one round trip; each side of the OR is
+    // answered by its unique index
+    private static final SqlStatement FIND_AVAILABILITY = SqlCatalog.define("UserDAO.findAvailability", """
+            SELECT COALESCE(MAX(CASE WHEN username = ? THEN 1 ELSE 0 END), 0),
+                   COALESCE(MAX(CASE WHEN email = ? THEN 1 ELSE 0 END), 0)
+            FROM users WHERE username = ? OR email = ?
+        """);
+    private static final SqlStatement EXISTS_BY_USERNAME = SqlCatalog.define("UserDAO.existsByUsername",
+            "SELECT COUNT(*) FROM users WHERE username = ?");
+    private static final SqlStatement EXISTS_BY_EMAIL = SqlCatalog.define("UserDAO.existsByEmail",
+            "SELECT COUNT(*) FROM users WHERE email = ?");
 
+    @Override
+    public User save(User user) throws Exception {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = INSERT.prepare(conn)) {
 
             pstmt.setString(1, user.getUsername());
             pstmt.setString(2, user.getPasswordHash());
@@ -43,10 +73,8 @@ public class UserDAO implements CrudDAO<User, Long> {
 
     @Override
     public Optional<User> findById(Long id) throws Exception {
-        String sql = "SELECT * FROM users WHERE id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_BY_ID.prepare(conn)) {
 
             pstmt.setLong(1, id);
             ResultSet rs = pstmt.executeQuery();
@@ -61,12 +89,11 @@ public class UserDAO implements CrudDAO<User, Long> {
 
     @Override
     public List<User> findAll() throws Exception {
-        String sql = "SELECT * FROM users";
         List<User> users = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = FIND_ALL.prepare(conn);
+             ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
                 users.add(mapResultSetToUser(rs));
@@ -78,14 +105,8 @@ public class UserDAO implements CrudDAO<User, Long> {
 
     @Override
     public void update(User user) throws Exception {
-        String sql = """
-            UPDATE users 
-            SET username = ?, password_hash = ?, email = ?, role = ?, updated_at = ?
-            WHERE id = ?
-        """;
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = UPDATE.prepare(conn)) {
 
             user.setUpdatedAt(LocalDateTime.now());
 
@@ -100,12 +121,34 @@ public class UserDAO implements CrudDAO<User, Long> {
         }
     }
 
+    // Used when a password hash is upgraded or a content key first wrapped on login. The wrapped
+    // key depends on the hash, so the two are only ever written together. Leaves updated_at alone
+    // since the user did not change anything.
+    public void updateCredentials(Long id, String passwordHash, String encryptionKey) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE_CREDENTIALS.prepare(conn)) {
+
+            pstmt.setString(1, passwordHash);
+            pstmt.setString(2, encryptionKey);
+            pstmt.setLong(3, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    public void updateEncryptEntries(Long id, boolean encryptEntries) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE_ENCRYPT_ENTRIES.prepare(conn)) {
+
+            pstmt.setBoolean(1, encryptEntries);
+            pstmt.setLong(2, id);
+            pstmt.executeUpdate();
+        }
+    }
+
     @Override
     public void delete(Long id) throws Exception {
-        String sql = "DELETE FROM users WHERE id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = DELETE.prepare(conn)) {
 
             pstmt.setLong(1, id);
             pstmt.executeUpdate();
@@ -122,14 +165,14 @@ public class UserDAO implements CrudDAO<User, Long> {
         user.setRole(UserRole.valueOf(rs.getString("role")));
         user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
         user.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        user.setEncryptionKey(rs.getString("encryption_key"));
+        user.setEncryptEntries(rs.getBoolean("encrypt_entries"));
 
         return user;
     }
     public Optional<User> findByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM users WHERE username = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_BY_USERNAME.prepare(conn)) {
 
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
@@ -142,11 +185,27 @@ public class UserDAO implements CrudDAO<User, Long> {
         }
     }
 
-    public boolean existsByUsername(String username) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
+    public Availability findAvailability(String username, String email) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_AVAILABILITY.prepare(conn)) {
 
+            pstmt.setString(1, username);
+            pstmt.setString(2, email);
+            pstmt.setString(3, username);
+            pstmt.setString(4, email);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return new Availability(rs.getInt(1) > 0, rs.getInt(2) > 0);
+            }
+
+            return new Availability(false, false);
+        }
+    }
+
+    public boolean existsByUsername(String username) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = EXISTS_BY_USERNAME.prepare(conn)) {
 
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
@@ -160,10 +219,8 @@ public class UserDAO implements CrudDAO<User, Long> {
     }
 
     public boolean existsByEmail(String email) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = EXISTS_BY_EMAIL.prepare(conn)) {
 
             pstmt.setString(1, email);
             ResultSet rs = pstmt.executeQuery();
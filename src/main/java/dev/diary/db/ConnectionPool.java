@@ -0,0 +1,398 @@
+package dev.diary.db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final PoolConfig config;
+
+    // One permit per borrowed connection, so at most maxSize are ever handed out
+    private final Semaphore permits;
+    // Most recently returned connections sit at the head, so the tail ages out first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+    private PrintWriter logWriter;
+
+    public ConnectionPool(String url, String username, String password, PoolConfig config) throws SQLException {
+        config.validate();
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "diary-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            fillToMinimum();
+        } catch (SQLException ex) {
+            close();
+            throw ex;
+        }
+        evictor.scheduleWithFixedDelay(this::evictIdle,
+                config.getEvictionIntervalMillis(), config.getEvictionIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeoutMillis()
+                        + " ms waiting for a database connection (max pool size " + config.getMaxSize() + ")");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled.borrow();
+                }
+                discard(pooled);
+            }
+            return openConnection().borrow();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The pool only hands out connections for its configured user");
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getOpenCount() {
+        return openConnections.get();
+    }
+
+    public int getActiveCount() {
+        return openConnections.get() - idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        openConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            pooled.statements.releaseAll();
+            if (closed || !resetState(pooled.physical)) {
+                discard(pooled);
+            } else {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Undo anything a borrower may have changed so the next borrower starts clean
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        openConnections.decrementAndGet();
+        pooled.statements.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - config.getIdleTimeoutMillis();
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && openConnections.get() > config.getMinSize()) {
+            PooledConnection pooled = oldestFirst.next();
+            if (pooled.lastReturnedAt < cutoff && idle.removeLastOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+
+        try {
+            fillToMinimum();
+        } catch (SQLException ignored) {
+            // The database is unreachable; borrowers will see the error themselves
+        }
+    }
+
+    private void fillToMinimum() throws SQLException {
+        while (!closed && openConnections.get() < config.getMinSize() && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = openConnection();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastReturnedAt;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, config.getStatementCacheSize());
+        }
+
+        private Connection borrow() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    // prepareStatement(sql) or prepareStatement(sql, RETURN_GENERATED_KEYS) for SQL in the
+    // catalog, prepared the way the catalog defines it; anything else goes to the driver as is
+    private static SqlStatement catalogStatement(Method method, Object[] args) {
+        if (!method.getName().equals("prepareStatement") || !(args[0] instanceof String sql)) {
+            return null;
+        }
+        SqlStatement statement = SqlCatalog.lookup(sql);
+        if (statement == null) {
+            return null;
+        }
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length == 1) {
+            return statement.returnsGeneratedKeys() ? null : statement;
+        }
+        boolean generatedKeys = parameters.length == 2 && parameters[1] == int.class
+                && (Integer) args[1] == Statement.RETURN_GENERATED_KEYS;
+        return generatedKeys && statement.returnsGeneratedKeys() ? statement : null;
+    }
+
+    // The handle a DAO sees: close() hands the physical connection back instead of closing it,
+    // and catalog statements come from the connection's StatementCache
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+                // Only the handle itself: a DAO holding the physical connection could close it
+                // or keep using it after it went back to the pool
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("Pooled connections cannot be unwrapped to " + ((Class<?>) args[0]).getName());
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    SqlStatement cataloged = catalogStatement(method, args);
+                    if (cataloged != null) {
+                        return pooled.statements.borrow(cataloged, (Connection) proxy);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    Class<?> type = method.getReturnType();
+                    if (result != null && (Statement.class.isAssignableFrom(type) || type == DatabaseMetaData.class)) {
+                        return new Shield(result, (Connection) proxy).wrap(type);
+                    }
+                    return result;
+            }
+        }
+    }
+
+    // Statements that are not in the catalog, their result sets and the connection's metadata.
+    // Each answers getConnection() or getStatement() with a handle and never unwraps to the
+    // driver's object, since either would lead a DAO back to the physical connection.
+    private static final class Shield implements InvocationHandler {
+        private final Object target;
+        private final Connection connection;
+        // What a result set's getStatement() answers; null for metadata results, as JDBC has it
+        private Object statement;
+        private Object self;
+
+        private Shield(Object target, Connection connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        private Object wrap(Class<?> type) {
+            self = Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{type}, this);
+            return self;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "getStatement":
+                    return statement;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("Pooled statements cannot be unwrapped to " + ((Class<?>) args[0]).getName());
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+                Shield results = new Shield(result, connection);
+                results.statement = target instanceof Statement ? self : statement;
+                return results.wrap(ResultSet.class);
+            }
+            return result;
+        }
+    }
+}
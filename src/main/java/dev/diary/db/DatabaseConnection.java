@@ -1,59 +1,53 @@
 package dev.diary.db;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/diaryKeeper";
-    private static final String USERNAME = "root"; // Replace with your MySQL username
-    private static final String PASSWORD = "Java2023!"; // Replace with your MySQL password
-    private static Connection connection;
+    private static final SqlDialect DIALECT = SqlDialect.fromSystemProperties();
+    private static final String URL = System.getProperty("diary.db.url", DIALECT.getDefaultUrl());
+    private static final String USERNAME = System.getProperty("diary.db.user", DIALECT.getDefaultUser());
+    private static final String PASSWORD = System.getProperty("diary.db.password", DIALECT.getDefaultPassword());
+    private static volatile ConnectionPool pool;
 
     private DatabaseConnection() {}
 
+    // Connections come from the pool; closing one returns it instead of tearing down the socket
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            initializeTables();
+        return getDataSource().getConnection();
+    }
+
+    public static DataSource getDataSource() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, USERNAME, PASSWORD, PoolConfig.fromSystemProperties());
+                    // Schema work runs once per pool, i.e. once per application start
+                    try (Connection conn = current.getConnection()) {
+                        new SchemaMigrator(conn).migrate();
+                    } catch (SQLException ex) {
+                        current.close();
+                        throw ex;
+                    }
+                    pool = current;
+                }
+            }
         }
-        return connection;
+        return current;
+    }
+
+    public static SqlDialect getDialect() {
+        return DIALECT;
     }
 
-    private static void initializeTables() throws SQLException {
-        String createUsersTable = """
-            CREATE TABLE IF NOT EXISTS users (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                username VARCHAR(255) UNIQUE NOT NULL,
-                password_hash VARCHAR(255) NOT NULL,
-                email VARCHAR(255) UNIQUE NOT NULL,
-                role VARCHAR(50) NOT NULL,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-            )
-        """;
-
-        String createEntriesTable = """
-            CREATE TABLE IF NOT EXISTS diary_entries (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                title VARCHAR(255) NOT NULL,
-                content TEXT NOT NULL,
-                user_id INT NOT NULL,
-                mood VARCHAR(50) NOT NULL,
-                is_encrypted BOOLEAN DEFAULT FALSE,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-                FOREIGN KEY (user_id) REFERENCES users(id)
-            )
-        """;
-
-        try (var stmt = connection.createStatement()) {
-            stmt.execute(createUsersTable);
-            stmt.execute(createEntriesTable);
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 }
@@ -0,0 +1,56 @@
+package dev.diary.db;
+
+import java.util.List;
+
+// Append-only: a schema change goes in a new migration, never into one that has shipped.
+// Column types and clauses that differ between engines are written as SqlDialect placeholders.
+// Version 1 was given placeholders when H2 arrived; on MySQL it still renders exactly as shipped.
+final class Migrations {
+
+    private Migrations() {}
+
+    static List<Migration> all() {
+        return List.of(
+                new Migration(1, "Create users and diary_entries tables",
+                        // IF NOT EXISTS lets databases created before migrations existed adopt version 1
+                        """
+                            CREATE TABLE IF NOT EXISTS users (
+                                id {identity},
+                                username VARCHAR(255) UNIQUE NOT NULL,
+                                password_hash VARCHAR(255) NOT NULL,
+                                email VARCHAR(255) UNIQUE NOT NULL,
+                                role VARCHAR(50) NOT NULL,
+                                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                            )
+                        """,
+                        """
+                            CREATE TABLE IF NOT EXISTS diary_entries (
+                                id {identity},
+                                title VARCHAR(255) NOT NULL,
+                                content {text} NOT NULL,
+                                user_id INT NOT NULL,
+                                mood VARCHAR(50) NOT NULL,
+                                is_encrypted BOOLEAN DEFAULT FALSE,
+                                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                                FOREIGN KEY (user_id) REFERENCES users(id)
+                            )
+                        """),
+                new Migration(2, "Index diary_entries for per-user timeline and mood queries",
+                        // Timeline and keyset pages: WHERE user_id = ? ORDER BY created_at, id.
+                        // mood and title ride along so summary lists never touch the row.
+                        "CREATE INDEX idx_entries_user_created ON diary_entries (user_id, created_at, id, mood, title)",
+                        // Mood filter: WHERE user_id = ? AND mood = ? ORDER BY created_at
+                        "CREATE INDEX idx_entries_user_mood_created ON diary_entries (user_id, mood, created_at, id, title)"),
+                new Migration(3, "Add per-user entry encryption settings",
+                        // The user's content key, wrapped under a key derived from their password
+                        "ALTER TABLE users ADD COLUMN encryption_key VARCHAR(255) NULL",
+                        "ALTER TABLE users ADD COLUMN encrypt_entries BOOLEAN NOT NULL DEFAULT FALSE"),
+                new Migration(4, "Widen diary_entries.content for encrypted entries",
+                        // MySQL's TEXT holds 64 KB, and Base64 ciphertext is a third longer than
+                        // the text it encrypts, so encrypted entries topped out near 48 KB
+                        "ALTER TABLE diary_entries {modifyColumn} content {longText} NOT NULL")
+        );
+    }
+}
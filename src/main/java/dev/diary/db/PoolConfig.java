@@ -0,0 +1,99 @@
+package dev.diary.db;
+
+public class PoolConfig {
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long acquireTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 300_000;
+    private long evictionIntervalMillis = 30_000;
+    private int validationTimeoutSeconds = 2;
+    // Prepared catalog statements kept open per connection; 0 prepares on every call
+    private int statementCacheSize = 64;
+
+    public PoolConfig() {}
+
+    // Reads overrides such as -Ddiary.pool.maxSize=20 from the command line
+    public static PoolConfig fromSystemProperties() {
+        PoolConfig config = new PoolConfig();
+        config.setMinSize(Integer.getInteger("diary.pool.minSize", config.getMinSize()));
+        config.setMaxSize(Integer.getInteger("diary.pool.maxSize", config.getMaxSize()));
+        config.setAcquireTimeoutMillis(Long.getLong("diary.pool.acquireTimeoutMillis", config.getAcquireTimeoutMillis()));
+        config.setIdleTimeoutMillis(Long.getLong("diary.pool.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+        config.setEvictionIntervalMillis(Long.getLong("diary.pool.evictionIntervalMillis", config.getEvictionIntervalMillis()));
+        config.setValidationTimeoutSeconds(Integer.getInteger("diary.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+        config.setStatementCacheSize(Integer.getInteger("diary.pool.statementCacheSize", config.getStatementCacheSize()));
+        config.validate();
+        return config;
+    }
+
+    public void validate() {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool max size must be at least 1");
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool min size must be between 0 and " + maxSize);
+        }
+        if (acquireTimeoutMillis < 0 || idleTimeoutMillis < 0 || evictionIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Pool timeouts must not be negative");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+}
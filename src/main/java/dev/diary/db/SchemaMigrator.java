@@ -0,0 +1,84 @@
+package dev.diary.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// Brings a database up to the newest schema version, applying each pending migration once
+public class SchemaMigrator {
+    private final Connection connection;
+    private final SqlDialect dialect;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(Connection connection) throws SQLException {
+        this(connection, SqlDialect.of(connection), Migrations.all());
+    }
+
+    public SchemaMigrator(Connection connection, SqlDialect dialect, List<Migration> migrations) {
+        this.connection = connection;
+        this.dialect = dialect;
+        this.migrations = migrations;
+    }
+
+    public int migrate() throws SQLException {
+        createVersionTable();
+        int current = currentVersion();
+
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            if (migration.getVersion() != current + 1) {
+                throw new SQLException("Schema migrations must be consecutive: expected version "
+                        + (current + 1) + " but found " + migration.getVersion());
+            }
+            apply(migration);
+            current = migration.getVersion();
+        }
+        return current;
+    }
+
+    public int currentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void createVersionTable() throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // MySQL and H2 both commit DDL implicitly, so a failed migration is reported rather than rolled back;
+    // the version row is only written once every statement has succeeded
+    private void apply(Migration migration) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String statement : migration.getStatements()) {
+                stmt.execute(dialect.render(statement));
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Schema migration " + migration.getVersion() + " ("
+                    + migration.getDescription() + ") failed: " + ex.getMessage(), ex);
+        }
+
+        String sql = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.executeUpdate();
+        }
+    }
+}
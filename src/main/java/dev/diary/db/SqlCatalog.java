@@ -0,0 +1,67 @@
+package dev.diary.db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Every statement the DAOs run, registered once by name. The pool keeps prepared handles only
+// for SQL found here, so one-off statements (migrations, ad-hoc queries) never push the hot
+// ones out of a connection's cache.
+public final class SqlCatalog {
+    private static final Map<String, SqlStatement> BY_NAME = new ConcurrentHashMap<>();
+    private static final Map<String, SqlStatement> BY_SQL = new ConcurrentHashMap<>();
+
+    private SqlCatalog() {}
+
+    public static SqlStatement define(String name, String sql) {
+        return register(new SqlStatement(name, sql, false));
+    }
+
+    // For INSERTs whose generated id is read back
+    public static SqlStatement defineInsert(String name, String sql) {
+        return register(new SqlStatement(name, sql, true));
+    }
+
+    // Sorted by name
+    public static List<SqlStatement> statements() {
+        List<SqlStatement> statements = new ArrayList<>(BY_NAME.values());
+        statements.sort(Comparator.comparing(SqlStatement::getName));
+        return statements;
+    }
+
+    // One line per statement that has been used, busiest first
+    public static String report() {
+        List<SqlStatement> used = new ArrayList<>();
+        for (SqlStatement statement : BY_NAME.values()) {
+            if (statement.getPrepares() + statement.getCacheHits() > 0) {
+                used.add(statement);
+            }
+        }
+        used.sort(Comparator.comparingLong(SqlStatement::getExecutions).reversed());
+
+        StringBuilder report = new StringBuilder();
+        for (SqlStatement statement : used) {
+            report.append(String.format("%-45s prepares=%d cacheHits=%d executions=%d%n", statement.getName(),
+                    statement.getPrepares(), statement.getCacheHits(), statement.getExecutions()));
+        }
+        return report.toString();
+    }
+
+    static SqlStatement lookup(String sql) {
+        return BY_SQL.get(sql);
+    }
+
+    private static SqlStatement register(SqlStatement statement) {
+        if (BY_NAME.putIfAbsent(statement.getName(), statement) != null) {
+            throw new IllegalStateException("SQL statement " + statement.getName() + " is already defined");
+        }
+        if (BY_SQL.putIfAbsent(statement.getSql(), statement) != null) {
+            BY_NAME.remove(statement.getName());
+            throw new IllegalStateException("SQL for " + statement.getName() + " is already defined as "
+                    + BY_SQL.get(statement.getSql()).getName());
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,94 @@
+package dev.diary.db;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+// The database engines the app can store entries in. MySQL is the shared server setup; H2
+// runs in-process against a local file, for single-user installs and for tests.
+// Migrations write the few column types and clauses that differ as {placeholders}, which render fills in.
+public enum SqlDialect {
+    // rewriteBatchedStatements turns JDBC batches into multi-row INSERTs, useCursorFetch makes
+    // statements that set a fetch size stream rows in chunks instead of buffering the whole
+    // result, and useServerPrepStmts has the server parse each statement. The pool's
+    // StatementCache keeps statements prepared per connection, so the driver's own
+    // cachePrepStmts would only cache the same statements a second time.
+    MYSQL("jdbc:mysql:", "INT AUTO_INCREMENT PRIMARY KEY", "TEXT", "MEDIUMTEXT", "MODIFY",
+            "jdbc:mysql://localhost:3306/diaryKeeper?rewriteBatchedStatements=true&useCursorFetch=true"
+                    + "&useServerPrepStmts=true",
+            "root", "Java2023!"),
+    H2("jdbc:h2:", "INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY", "CLOB", "CLOB", "ALTER COLUMN",
+            "jdbc:h2:file:" + Path.of(System.getProperty("user.home"), ".diarykeeper", "diary"),
+            "sa", "");
+
+    private final String urlPrefix;
+    private final String identityColumn;
+    private final String textType;
+    private final String longTextType;
+    private final String modifyColumn;
+    private final String defaultUrl;
+    private final String defaultUser;
+    private final String defaultPassword;
+
+    SqlDialect(String urlPrefix, String identityColumn, String textType, String longTextType, String modifyColumn,
+               String defaultUrl, String defaultUser, String defaultPassword) {
+        this.urlPrefix = urlPrefix;
+        this.identityColumn = identityColumn;
+        this.textType = textType;
+        this.longTextType = longTextType;
+        this.modifyColumn = modifyColumn;
+        this.defaultUrl = defaultUrl;
+        this.defaultUser = defaultUser;
+        this.defaultPassword = defaultPassword;
+    }
+
+    // -Ddiary.db.dialect=h2 picks the embedded store; otherwise the dialect follows
+    // -Ddiary.db.url, and with neither set the app keeps talking to MySQL
+    public static SqlDialect fromSystemProperties() {
+        String name = System.getProperty("diary.db.dialect");
+        if (name != null && !name.isBlank()) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown database dialect: " + name, ex);
+            }
+        }
+        String url = System.getProperty("diary.db.url");
+        return url == null ? MYSQL : fromUrl(url);
+    }
+
+    public static SqlDialect fromUrl(String url) {
+        for (SqlDialect dialect : values()) {
+            if (url.startsWith(dialect.urlPrefix)) {
+                return dialect;
+            }
+        }
+        throw new IllegalArgumentException("No database dialect for URL: " + url);
+    }
+
+    // H2 reports itself as H2 even when running in MySQL compatibility mode
+    public static SqlDialect of(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return "H2".equalsIgnoreCase(product) ? H2 : MYSQL;
+    }
+
+    public String render(String sql) {
+        return sql.replace("{identity}", identityColumn)
+                .replace("{text}", textType)
+                .replace("{longText}", longTextType)
+                .replace("{modifyColumn}", modifyColumn);
+    }
+
+    public String getDefaultUrl() {
+        return defaultUrl;
+    }
+
+    public String getDefaultUser() {
+        return defaultUser;
+    }
+
+    public String getDefaultPassword() {
+        return defaultPassword;
+    }
+}
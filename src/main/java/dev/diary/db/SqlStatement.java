@@ -0,0 +1,83 @@
+package dev.diary.db;
+
+import dev.diary.metrics.MethodMetrics;
+import dev.diary.metrics.Metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+// A named statement from the SqlCatalog, with counters across every connection: prepares
+// (parses the driver or server had to do), cache hits (borrows answered by an already
+// prepared handle) and executions. Its MethodMetrics time each use, from the first execute
+// until the statement is closed, so reading the results is part of it.
+public final class SqlStatement {
+    private final String name;
+    private final String sql;
+    private final boolean returnsGeneratedKeys;
+    private final LongAdder prepares = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final MethodMetrics metrics;
+
+    SqlStatement(String name, String sql, boolean returnsGeneratedKeys) {
+        this.name = name;
+        this.sql = sql;
+        this.returnsGeneratedKeys = returnsGeneratedKeys;
+        this.metrics = Metrics.register("dao", name);
+    }
+
+    // On a pooled connection this is answered from the connection's statement cache
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        return returnsGeneratedKeys
+                ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(sql);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public boolean returnsGeneratedKeys() {
+        return returnsGeneratedKeys;
+    }
+
+    public long getPrepares() {
+        return prepares.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    void recordPrepare() {
+        prepares.increment();
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordExecution() {
+        executions.increment();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,316 @@
+package dev.diary.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The catalog statements prepared on one physical connection, so each is parsed once per
+// connection rather than once per DAO call. DAOs get a handle whose close() gives the
+// statement back, cleared of parameters and settings, instead of closing it. Beyond maxSize
+// the least recently used statement is closed. Like the connection it belongs to, it is only
+// used by one borrower at a time.
+final class StatementCache {
+    @FunctionalInterface
+    private interface Reset {
+        void apply(Statement statement) throws SQLException;
+    }
+
+    // The statement-level settings a DAO may change on a cached statement, and how giveBack()
+    // puts each back to the JDBC default. Anything else that would outlive one use, such as a
+    // cursor name or closeOnCompletion(), is refused.
+    private static final Map<String, Reset> RESETS = Map.of(
+            "setFetchSize", statement -> statement.setFetchSize(0),
+            "setFetchDirection", statement -> statement.setFetchDirection(ResultSet.FETCH_FORWARD),
+            "setMaxRows", statement -> statement.setMaxRows(0),
+            "setLargeMaxRows", statement -> statement.setLargeMaxRows(0),
+            "setMaxFieldSize", statement -> statement.setMaxFieldSize(0),
+            "setQueryTimeout", statement -> statement.setQueryTimeout(0),
+            "setEscapeProcessing", statement -> statement.setEscapeProcessing(true),
+            "setPoolable", statement -> statement.setPoolable(true));
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<SqlStatement, Cached> cached = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+    }
+
+    // The handle answers getConnection() with the pooled connection it was borrowed through
+    PreparedStatement borrow(SqlStatement statement, Connection connection) throws SQLException {
+        Cached entry = cached.get(statement);
+        if (entry != null && !entry.borrowed) {
+            statement.recordCacheHit();
+            entry.borrowed = true;
+            entry.connection = connection;
+            return entry.handle;
+        }
+
+        PreparedStatement prepared = prepare(statement);
+        statement.recordPrepare();
+        // Already out (a nested call on the same connection) or caching is off: this one is
+        // closed for real when the DAO closes it
+        if (entry != null || maxSize == 0) {
+            Cached uncached = new Cached(statement, prepared, false);
+            uncached.connection = connection;
+            return uncached.handle;
+        }
+
+        entry = new Cached(statement, prepared, true);
+        entry.borrowed = true;
+        entry.connection = connection;
+        cached.put(statement, entry);
+        evictBeyondMaxSize();
+        return entry.handle;
+    }
+
+    // The connection is going back to the pool; DAOs close their statements, so this only
+    // catches one that was left open
+    void releaseAll() {
+        for (Cached entry : new ArrayList<>(cached.values())) {
+            if (entry.borrowed) {
+                entry.giveBack();
+            }
+        }
+    }
+
+    void closeAll() {
+        for (Cached entry : cached.values()) {
+            entry.closeQuietly();
+        }
+        cached.clear();
+    }
+
+    private PreparedStatement prepare(SqlStatement statement) throws SQLException {
+        return statement.returnsGeneratedKeys()
+                ? physical.prepareStatement(statement.getSql(), Statement.RETURN_GENERATED_KEYS)
+                : physical.prepareStatement(statement.getSql());
+    }
+
+    private void evictBeyondMaxSize() {
+        Iterator<Map.Entry<SqlStatement, Cached>> leastRecentFirst = cached.entrySet().iterator();
+        while (cached.size() > maxSize && leastRecentFirst.hasNext()) {
+            Cached entry = leastRecentFirst.next().getValue();
+            if (!entry.borrowed) {
+                leastRecentFirst.remove();
+                entry.closeQuietly();
+            }
+        }
+    }
+
+    // executeUpdate's count, or the sum of executeBatch's; drivers report -2 for a batch
+    // entry whose count they do not know
+    private static long updateCount(Object result) {
+        if (result instanceof Number count) {
+            return Math.max(count.longValue(), 0);
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    private final class Cached implements InvocationHandler {
+        private final SqlStatement statement;
+        private final PreparedStatement prepared;
+        private final boolean reusable;
+        private final PreparedStatement handle;
+        private boolean borrowed;
+        private Connection connection;
+        // What giveBack() has to undo for the next borrower
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean batched;
+        private final Set<String> changedSettings = new HashSet<>(2);
+        // This use so far, for the statement's metrics; startedAt is 0 until the first execute
+        private long startedAt;
+        private long rows;
+        private boolean failed;
+
+        private Cached(SqlStatement statement, PreparedStatement prepared, boolean reusable) {
+            this.statement = statement;
+            this.prepared = prepared;
+            this.reusable = reusable;
+            this.borrowed = !reusable;
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (borrowed) {
+                        if (reusable) {
+                            giveBack();
+                        } else {
+                            borrowed = false;
+                            recordUse();
+                            prepared.close();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !borrowed || prepared.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + statement.getName() + "]";
+                case "getConnection":
+                    return connection;
+                // Only the handle itself, as for the pool's connections: the driver's statement
+                // leads back to the physical connection, and closing it would break this entry
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("Cached statements cannot be unwrapped to " + ((Class<?>) args[0]).getName());
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    break;
+            }
+            if (!borrowed) {
+                throw new SQLException("Statement " + statement.getName() + " has already been closed");
+            }
+
+            boolean executes = name.startsWith("execute");
+            if (executes) {
+                statement.recordExecution();
+                if (startedAt == 0 && statement.getMetrics().isEnabled()) {
+                    startedAt = System.nanoTime();
+                }
+            } else if (name.equals("addBatch")) {
+                batched = true;
+            } else if (reusable && method.getDeclaringClass() != PreparedStatement.class
+                    && (name.startsWith("set") || name.equals("closeOnCompletion"))) {
+                // Statement-level settings such as setFetchSize, not parameter values
+                if (!RESETS.containsKey(name)) {
+                    throw new SQLFeatureNotSupportedException("Cached statement " + statement.getName()
+                            + " does not support " + name);
+                }
+                changedSettings.add(name);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(prepared, args);
+            } catch (InvocationTargetException ex) {
+                failed |= executes;
+                throw ex.getCause();
+            }
+            if (result instanceof ResultSet resultSet) {
+                // Generated keys are not rows the statement read
+                boolean counted = startedAt != 0 && (executes || name.equals("getResultSet"));
+                openResults.add(resultSet);
+                return handOut(resultSet, counted);
+            } else if (executes && startedAt != 0) {
+                rows += updateCount(result);
+            }
+            return result;
+        }
+
+        // getStatement() answers with the handle, never the driver's statement; rows the DAO
+        // reads are counted while metrics are on
+        private ResultSet handOut(ResultSet resultSet, boolean counted) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getStatement":
+                                return handle;
+                            case "unwrap":
+                                if (((Class<?>) args[0]).isInstance(proxy)) {
+                                    return proxy;
+                                }
+                                throw new SQLException("Result sets of cached statements cannot be unwrapped to "
+                                        + ((Class<?>) args[0]).getName());
+                            case "isWrapperFor":
+                                return ((Class<?>) args[0]).isInstance(proxy);
+                            default:
+                                break;
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(resultSet, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                        if (counted && Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                            rows++;
+                        }
+                        return result;
+                    });
+        }
+
+        private void recordUse() {
+            if (startedAt != 0) {
+                statement.getMetrics().record(startedAt, rows, failed);
+            }
+            startedAt = 0;
+            rows = 0;
+            failed = false;
+        }
+
+        // Back to the state it was prepared in; a statement that cannot be reset is dropped
+        private void giveBack() {
+            borrowed = false;
+            connection = null;
+            recordUse();
+            try {
+                for (ResultSet resultSet : openResults) {
+                    resultSet.close();
+                }
+                openResults.clear();
+                prepared.clearParameters();
+                if (batched) {
+                    prepared.clearBatch();
+                    batched = false;
+                }
+                for (String setting : changedSettings) {
+                    RESETS.get(setting).apply(prepared);
+                }
+                changedSettings.clear();
+                prepared.clearWarnings();
+            } catch (SQLException ex) {
+                cached.remove(statement);
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                prepared.close();
+            } catch (SQLException ignored) {
+                // The statement is being thrown away anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dev.diary.draft;
+
+import dev.diary.model.EntryMood;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+// An entry being written: what the journal rebuilds and what the autosaver flushes.
+// Only DraftAutosaver's thread touches one.
+final class Draft {
+    private final long id;
+    private String title;
+    private EntryMood mood;
+    private final StringBuilder text = new StringBuilder();
+    // Set once the database has stored it; later flushes update that row
+    private Long entryId;
+    private LocalDateTime createdAt;
+    private boolean finished;
+    // Cleared by the user; finished too, since nobody types into it any more
+    private boolean discarded;
+    // Bumped by every change; a flush records the version it wrote
+    private long version;
+    private long flushedVersion;
+    private boolean flushing;
+    // Completed by the database write when there is no journal for Save to wait on
+    private CompletableFuture<Void> saved;
+
+    Draft(long id, String title, EntryMood mood) {
+        this.id = id;
+        this.title = title;
+        this.mood = mood;
+    }
+
+    // Edits come from the editor's own text, so they always fit; the clamps only matter for a
+    // journal written by a different build
+    void edit(int position, int removed, String inserted) {
+        int start = Math.max(0, Math.min(position, text.length()));
+        int end = Math.max(start, Math.min(start + removed, text.length()));
+        text.replace(start, end, inserted);
+        version++;
+    }
+
+    void replaceText(String replacement) {
+        text.setLength(0);
+        text.append(replacement);
+        version++;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    void setTitle(String title) {
+        this.title = title;
+        version++;
+    }
+
+    EntryMood getMood() {
+        return mood;
+    }
+
+    void setMood(EntryMood mood) {
+        this.mood = mood;
+        version++;
+    }
+
+    String getText() {
+        return text.toString();
+    }
+
+    boolean hasContent() {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The database refuses an entry without content or a mood
+    boolean isStorable() {
+        return mood != null && hasContent();
+    }
+
+    Long getEntryId() {
+        return entryId;
+    }
+
+    LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    void stored(Long entryId, LocalDateTime createdAt) {
+        this.entryId = entryId;
+        this.createdAt = createdAt;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    void finish() {
+        finished = true;
+    }
+
+    boolean isDiscarded() {
+        return discarded;
+    }
+
+    void discard() {
+        discarded = true;
+        finished = true;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    boolean isFlushed() {
+        return flushedVersion == version;
+    }
+
+    void flushed(long flushed) {
+        flushedVersion = Math.max(flushedVersion, flushed);
+    }
+
+    boolean isFlushing() {
+        return flushing;
+    }
+
+    void setFlushing(boolean flushing) {
+        this.flushing = flushing;
+    }
+
+    CompletableFuture<Void> getSaved() {
+        return saved;
+    }
+
+    void setSaved(CompletableFuture<Void> saved) {
+        this.saved = saved;
+    }
+}
@@ -0,0 +1,637 @@
+package dev.diary.draft;
+
+import dev.diary.crypto.EntryCipher;
+import dev.diary.crypto.EntryKeys;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.service.AsyncDiaryService;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps what is typed in the editor safe without making the user wait on the database.
+// Keystrokes become edit records, coalesced for a moment and then appended to the user's
+// DraftJournal; once typing pauses the draft is written to the database as one insert (and
+// later updates of that row). Save only has to reach the journal, and the database write
+// follows in the background. Clear discards the draft and deletes the row autosave wrote for
+// it. Opening the autosaver replays the journal: an unfinished draft comes back for the
+// editor, finished ones that never reached the database are written now.
+// All draft state lives on one thread, so the public methods only hand work to it and
+// none of them blocks.
+public class DraftAutosaver {
+    private static final long COALESCE_MILLIS = Long.getLong("diary.draft.coalesceMillis", 300);
+    private static final long IDLE_MILLIS = Long.getLong("diary.draft.idleMillis", 2_000);
+    private static final long RETRY_MILLIS = Long.getLong("diary.draft.retryMillis", 10_000);
+    private static final long SYNC_INTERVAL_MILLIS = Long.getLong("diary.draft.syncIntervalMillis", 1_000);
+    private static final long COMPACT_BYTES = Long.getLong("diary.draft.compactBytes", 1 << 20);
+    private static final long CLOSE_WAIT_MILLIS = 5_000;
+
+    private final AsyncDiaryService diaryService;
+    private final Long userId;
+    private final Supplier<String> titles;
+    private final Consumer<Throwable> onError;
+    private final ScheduledExecutorService worker;
+    private final String recoveredText;
+    private final EntryMood recoveredMood;
+    private volatile boolean closed;
+    private CompletableFuture<Void> closing;
+
+    // Everything below belongs to the worker thread
+    private final Map<Long, Draft> drafts = new LinkedHashMap<>();
+    private final List<JournalRecord> pending = new ArrayList<>();
+    private final List<CompletableFuture<?>> inFlight = new ArrayList<>();
+    // Null once the journal has failed; drafts then only reach the database
+    private DraftJournal journal;
+    private Draft current;
+    private EntryMood mood;
+    private long nextDraftId = 1;
+    private ScheduledFuture<?> appendTask;
+    private ScheduledFuture<?> idleTask;
+    private ScheduledFuture<?> syncTask;
+    // Reports the first of a run of failed database writes, not every retry
+    private boolean failing;
+
+    public DraftAutosaver(AsyncDiaryService diaryService, Long userId, Supplier<String> titles,
+                          Consumer<Throwable> onError) {
+        this.diaryService = diaryService;
+        this.userId = userId;
+        this.titles = titles;
+        this.onError = onError;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "diary-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            journal = new DraftJournal(journalFile(userId), DraftJournal.SyncPolicy.fromSystemProperties(), SYNC_INTERVAL_MILLIS);
+            recover(journal.replay());
+        } catch (IOException | GeneralSecurityException | RuntimeException ex) {
+            drafts.clear();
+            current = null;
+            abandonJournal(ex);
+        }
+        recoveredText = current == null ? null : current.getText();
+        recoveredMood = current == null ? null : current.getMood();
+        execute(this::resume);
+    }
+
+    public static Path journalFile(Long userId) {
+        Path directory = Path.of(System.getProperty("diary.draft.dir",
+                Path.of(System.getProperty("user.home"), ".diarykeeper", "drafts").toString()));
+        return directory.resolve("user-" + userId + ".journal");
+    }
+
+    // The unfinished draft found in the journal, or null
+    public String getRecoveredText() {
+        return recoveredText;
+    }
+
+    // The mood chosen for that draft, or null
+    public EntryMood getRecoveredMood() {
+        return recoveredMood;
+    }
+
+    // Called with the editor's text before and after each change; only the changed span is
+    // passed on
+    public void textChanged(String before, String after) {
+        int limit = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < limit && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Never split a surrogate pair, which would not survive the trip through UTF-8
+        if (prefix > 0 && Character.isHighSurrogate(after.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(after.charAt(after.length() - suffix))) {
+            suffix--;
+        }
+
+        int position = prefix;
+        int removed = before.length() - prefix - suffix;
+        String inserted = after.substring(prefix, after.length() - suffix);
+        if (removed == 0 && inserted.isEmpty()) {
+            return;
+        }
+        execute(() -> edit(position, removed, inserted));
+    }
+
+    public void moodChanged(EntryMood selected) {
+        execute(() -> {
+            mood = selected;
+            if (current != null && current.getMood() != selected) {
+                current.setMood(selected);
+                pending.add(JournalRecord.mood(current.getId(), selected));
+                changed(current);
+            }
+        });
+    }
+
+    // Completes once the entry is safe in the journal, which is what Save waits for; the
+    // database write follows. Without a journal it completes when the database write does.
+    public CompletableFuture<Void> finish(String text, EntryMood selected) {
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        if (text == null || text.trim().isEmpty()) {
+            saved.completeExceptionally(new IllegalArgumentException("Entry content cannot be empty"));
+            return saved;
+        }
+        if (selected == null) {
+            saved.completeExceptionally(new IllegalArgumentException("Mood cannot be null"));
+            return saved;
+        }
+
+        execute(() -> {
+            Draft draft = currentDraft();
+            // The editor is the authority; this only differs if a change event was missed
+            if (!draft.getText().equals(text)) {
+                pending.add(JournalRecord.edit(draft.getId(), 0, draft.getText().length(), text));
+                draft.replaceText(text);
+            }
+            if (draft.getMood() != selected) {
+                draft.setMood(selected);
+            }
+            draft.finish();
+            pending.add(JournalRecord.finish(draft.getId(), draft.getTitle(), selected));
+            current = null;
+            mood = null;
+            cancelIdleFlush();
+
+            appendPending();
+            syncJournal();
+            if (journal != null) {
+                saved.complete(null);
+            } else {
+                draft.setSaved(saved);
+            }
+            flush(draft);
+        });
+        return saved;
+    }
+
+    // The editor was cleared: the draft is dropped, and so is its row if autosave already
+    // wrote one. The mood stays for whatever is typed next.
+    public void discard() {
+        execute(() -> {
+            if (current == null) {
+                return;
+            }
+            Draft draft = current;
+            current = null;
+            cancelIdleFlush();
+            draft.discard();
+            pending.add(JournalRecord.discard(draft.getId()));
+            appendPending();
+            flush(draft);
+        });
+    }
+
+    // Writes out what is pending and gives database writes already under way a little time.
+    // Completes, never exceptionally, once the journal is closed; anything that must not run
+    // before that, like locking the user's key or shutting the database down, follows it.
+    public synchronized CompletableFuture<Void> close() {
+        if (closing != null) {
+            return closing;
+        }
+        closed = true;
+        CompletableFuture<Void> journalClosed = new CompletableFuture<>();
+        closing = journalClosed.orTimeout(2 * CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    onError.accept(error);
+                    return null;
+                })
+                .whenComplete((ignored, error) -> worker.shutdownNow());
+        worker.execute(() -> {
+            try {
+                cancelIdleFlush();
+                appendPending();
+            } catch (RuntimeException ex) {
+                journalClosed.completeExceptionally(ex);
+                return;
+            }
+            // A failed write was already reported, and the journal still has the draft
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                    .completeOnTimeout(null, CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                    .whenCompleteAsync((ignored, error) -> {
+                        try {
+                            appendPending();
+                            compact();
+                            closeJournal();
+                            journalClosed.complete(null);
+                        } catch (RuntimeException ex) {
+                            journalClosed.completeExceptionally(ex);
+                        }
+                    }, worker);
+        });
+        return closing;
+    }
+
+    // Rebuilds the drafts the journal holds. Runs in the constructor, before the worker has
+    // been given anything.
+    private void recover(List<JournalRecord> records) throws GeneralSecurityException {
+        for (JournalRecord record : records) {
+            long id = record.getDraftId();
+            nextDraftId = Math.max(nextDraftId, id + 1);
+            if (record.getType() == JournalRecord.Type.OPEN) {
+                drafts.put(id, new Draft(id, record.getText(), record.getMood()));
+                continue;
+            }
+            Draft draft = drafts.get(id);
+            if (draft == null) {
+                continue;
+            }
+            switch (record.getType()) {
+                case EDIT -> draft.edit(record.getPosition(), record.getRemoved(), unseal(record));
+                case MOOD -> draft.setMood(record.getMood());
+                case STORED -> draft.stored(record.getEntryId(), record.getCreatedAt());
+                case FINISH -> {
+                    draft.setTitle(record.getText());
+                    draft.setMood(record.getMood());
+                    draft.finish();
+                }
+                case DONE -> drafts.remove(id);
+                case DISCARD -> draft.discard();
+                default -> {
+                }
+            }
+        }
+
+        // Only one draft is ever open in the editor; any older unfinished one is saved as it
+        // stands, or dropped if it has no content or mood, since it could never be stored
+        for (Draft draft : drafts.values()) {
+            if (!draft.isFinished()) {
+                if (current != null) {
+                    current.finish();
+                }
+                current = draft;
+            }
+        }
+        drafts.values().removeIf(draft -> draft.isFinished() && !draft.isDiscarded() && !draft.isStorable());
+        if (current != null) {
+            mood = current.getMood();
+        }
+    }
+
+    // First task on the worker: rewrite the journal down to the recovered drafts and write
+    // them to the database
+    private void resume() {
+        if (drafts.isEmpty()) {
+            compact();
+        } else {
+            rewriteJournal();
+        }
+        for (Draft draft : drafts.values()) {
+            if (draft.isFinished()) {
+                flush(draft);
+            }
+        }
+        if (current != null) {
+            scheduleIdleFlush(current);
+        }
+    }
+
+    private void edit(int position, int removed, String inserted) {
+        Draft draft = currentDraft();
+        draft.edit(position, removed, inserted);
+
+        JournalRecord last = pending.isEmpty() ? null : pending.get(pending.size() - 1);
+        JournalRecord merged = last != null && last.getType() == JournalRecord.Type.EDIT
+                && last.getDraftId() == draft.getId() ? coalesce(last, position, removed, inserted) : null;
+        if (merged != null) {
+            pending.set(pending.size() - 1, merged);
+        } else {
+            pending.add(JournalRecord.edit(draft.getId(), position, removed, inserted));
+        }
+        changed(draft);
+    }
+
+    // Typing extends the previous insert and backspacing trims it, so a burst of keystrokes
+    // is appended as one record
+    private static JournalRecord coalesce(JournalRecord last, int position, int removed, String inserted) {
+        String text = last.getText();
+        int end = last.getPosition() + text.length();
+        if (removed == 0 && position == end) {
+            return JournalRecord.edit(last.getDraftId(), last.getPosition(), last.getRemoved(), text + inserted);
+        }
+        if (inserted.isEmpty() && position + removed == end && position >= last.getPosition()) {
+            return JournalRecord.edit(last.getDraftId(), last.getPosition(), last.getRemoved(),
+                    text.substring(0, position - last.getPosition()));
+        }
+        return null;
+    }
+
+    private Draft currentDraft() {
+        if (current == null) {
+            current = new Draft(nextDraftId++, titles.get(), mood);
+            drafts.put(current.getId(), current);
+            pending.add(JournalRecord.open(current.getId(), current.getTitle(), current.getMood()));
+        }
+        return current;
+    }
+
+    private void changed(Draft draft) {
+        if (appendTask == null || appendTask.isDone()) {
+            appendTask = worker.schedule(guarded(this::appendPending), COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        scheduleIdleFlush(draft);
+    }
+
+    private void scheduleIdleFlush(Draft draft) {
+        cancelIdleFlush();
+        idleTask = worker.schedule(guarded(() -> flush(draft)), IDLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelIdleFlush() {
+        if (idleTask != null) {
+            idleTask.cancel(false);
+            idleTask = null;
+        }
+    }
+
+    // One database write per draft at a time; whatever changes meanwhile goes in the next one.
+    // A draft without content or mood cannot be stored yet and waits for more typing.
+    private void flush(Draft draft) {
+        if (draft.isFlushing() || drafts.get(draft.getId()) != draft) {
+            return;
+        }
+        if (draft.isDiscarded()) {
+            delete(draft);
+            return;
+        }
+        if (draft.isFlushed()) {
+            if (draft.isFinished()) {
+                done(draft);
+            }
+            return;
+        }
+        if (!draft.isStorable()) {
+            return;
+        }
+
+        long version = draft.getVersion();
+        DiaryEntry entry = new DiaryEntry(draft.getTitle(), draft.getText(), userId, draft.getMood());
+        CompletableFuture<DiaryEntry> write;
+        if (draft.getEntryId() == null) {
+            write = diaryService.saveEntry(entry);
+        } else {
+            entry.setId(draft.getEntryId());
+            entry.setCreatedAt(draft.getCreatedAt());
+            write = diaryService.updateEntry(entry).thenApply(ignored -> entry);
+        }
+        draft.setFlushing(true);
+        // Tracks the callback rather than the write, so close() also waits for the STORED record
+        inFlight.add(write.whenCompleteAsync(guarded((stored, error) -> flushed(draft, version, stored, error)), worker));
+    }
+
+    private void flushed(Draft draft, long version, DiaryEntry stored, Throwable error) {
+        inFlight.removeIf(CompletableFuture::isDone);
+        draft.setFlushing(false);
+        if (error != null) {
+            if (draft.getSaved() != null) {
+                // No journal to fall back on: the save failed as it would have without autosave
+                drafts.remove(draft.getId());
+                draft.getSaved().completeExceptionally(error);
+                return;
+            }
+            failed(draft, error);
+            return;
+        }
+
+        failing = false;
+        if (draft.getEntryId() == null) {
+            draft.stored(stored.getId(), stored.getCreatedAt());
+            pending.add(JournalRecord.stored(draft.getId(), stored.getId(), stored.getCreatedAt()));
+        }
+        draft.flushed(version);
+        if (draft.isFinished()) {
+            flush(draft);
+        } else if (!draft.isFlushed()) {
+            // Changed while the write was in flight
+            scheduleIdleFlush(draft);
+        }
+        // The STORED record goes out now; replaying without it would insert the entry again
+        appendPending();
+        compact();
+    }
+
+    // A discarded draft that autosave never stored is simply done; one still being inserted
+    // is deleted once the insert has given it an id
+    private void delete(Draft draft) {
+        if (draft.getEntryId() == null) {
+            done(draft);
+            return;
+        }
+        draft.setFlushing(true);
+        CompletableFuture<Void> write = diaryService.deleteEntry(userId, draft.getEntryId());
+        inFlight.add(write.whenCompleteAsync(guarded((ignored, error) -> deleted(draft, error)), worker));
+    }
+
+    private void deleted(Draft draft, Throwable error) {
+        inFlight.removeIf(CompletableFuture::isDone);
+        draft.setFlushing(false);
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        // IllegalArgumentException: the row is gone already, deleted from the list or before a
+        // crash kept the DONE record out of the journal
+        if (cause != null && !(cause instanceof IllegalArgumentException)) {
+            failed(draft, cause);
+            return;
+        }
+        failing = false;
+        done(draft);
+        appendPending();
+        compact();
+    }
+
+    private void failed(Draft draft, Throwable error) {
+        if (!failing) {
+            failing = true;
+            onError.accept(error);
+        }
+        // Nobody is typing into a finished draft, so nothing else would try again
+        if (draft.isFinished() && !closed) {
+            worker.schedule(guarded(() -> flush(draft)), RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void done(Draft draft) {
+        pending.add(JournalRecord.done(draft.getId()));
+        drafts.remove(draft.getId());
+        if (draft.getSaved() != null) {
+            draft.getSaved().complete(null);
+        }
+    }
+
+    private void appendPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.append(sealed(pending));
+            } catch (IOException | GeneralSecurityException ex) {
+                abandonJournal(ex);
+            }
+        }
+        pending.clear();
+        scheduleSync();
+    }
+
+    // The journal only syncs on an append past the interval, so the last burst of typing
+    // before a pause would otherwise wait for the next one
+    private void scheduleSync() {
+        if (journal != null && journal.needsSync() && (syncTask == null || syncTask.isDone())) {
+            syncTask = worker.schedule(guarded(this::syncJournal), SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void syncJournal() {
+        if (journal != null) {
+            try {
+                journal.sync();
+            } catch (IOException ex) {
+                abandonJournal(ex);
+            }
+        }
+    }
+
+    // Empties the journal once every draft is in the database, and otherwise rewrites it down
+    // to one record per fact when it has grown past COMPACT_BYTES
+    private void compact() {
+        if (journal == null || !pending.isEmpty()) {
+            return;
+        }
+        try {
+            if (drafts.isEmpty()) {
+                if (journal.size() > 0) {
+                    journal.reset();
+                }
+            } else if (journal.size() > COMPACT_BYTES) {
+                rewriteJournal();
+            }
+        } catch (IOException ex) {
+            abandonJournal(ex);
+        }
+    }
+
+    private void rewriteJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.rewrite(sealed(snapshot()));
+        } catch (IOException | GeneralSecurityException ex) {
+            abandonJournal(ex);
+        }
+    }
+
+    private List<JournalRecord> snapshot() {
+        List<JournalRecord> records = new ArrayList<>();
+        for (Draft draft : drafts.values()) {
+            records.add(JournalRecord.open(draft.getId(), draft.getTitle(), draft.getMood()));
+            String text = draft.getText();
+            // A discarded draft's text is not needed again, only the row to delete
+            if (!text.isEmpty() && !draft.isDiscarded()) {
+                records.add(JournalRecord.edit(draft.getId(), 0, 0, text));
+            }
+            if (draft.getEntryId() != null) {
+                records.add(JournalRecord.stored(draft.getId(), draft.getEntryId(), draft.getCreatedAt()));
+            }
+            if (draft.isDiscarded()) {
+                records.add(JournalRecord.discard(draft.getId()));
+            } else if (draft.isFinished()) {
+                records.add(JournalRecord.finish(draft.getId(), draft.getTitle(), draft.getMood()));
+            }
+        }
+        return records;
+    }
+
+    // Typed text is encrypted under the same setting and key as the user's stored entries
+    private List<JournalRecord> sealed(List<JournalRecord> records) throws GeneralSecurityException {
+        SecretKey key = EntryKeys.shared().encryptionKeyFor(userId);
+        if (key == null) {
+            return records;
+        }
+        List<JournalRecord> sealedRecords = new ArrayList<>(records.size());
+        for (JournalRecord record : records) {
+            if (record.getType() == JournalRecord.Type.EDIT && !record.getText().isEmpty()) {
+                record = record.withText(EntryCipher.encrypt(key, userId, record.getText()), true);
+            }
+            sealedRecords.add(record);
+        }
+        return sealedRecords;
+    }
+
+    private String unseal(JournalRecord record) throws GeneralSecurityException {
+        if (!record.isSealed()) {
+            return record.getText();
+        }
+        SecretKey key = EntryKeys.shared().get(userId);
+        if (key == null) {
+            throw new GeneralSecurityException("The draft journal is encrypted and the user's key is locked");
+        }
+        return EntryCipher.decrypt(key, userId, record.getText());
+    }
+
+    private void abandonJournal(Exception cause) {
+        onError.accept(new IOException("Drafts can no longer be kept locally: " + cause.getMessage(), cause));
+        closeJournal();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                // Nothing more to lose
+            }
+            journal = null;
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (!closed) {
+            worker.execute(guarded(task));
+        }
+    }
+
+    // A scheduled executor keeps a task's exception to itself
+    private Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                onError.accept(ex);
+            }
+        };
+    }
+
+    private <T> BiConsumer<T, Throwable> guarded(BiConsumer<T, Throwable> callback) {
+        return (value, error) -> {
+            try {
+                callback.accept(value, error);
+            } catch (RuntimeException ex) {
+                onError.accept(ex);
+            }
+        };
+    }
+}
@@ -0,0 +1,202 @@
+package dev.diary.draft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+// Append-only file of JournalRecords, each framed as [int length][int crc32][payload]. A crash
+// mid-append leaves a short or mismatched last record; replay stops there and cuts the file
+// back to the last good record, so the next append follows it.
+// Not thread-safe; DraftAutosaver only touches it from its own thread.
+public class DraftJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    public enum SyncPolicy {
+        // force() after every append
+        ALWAYS,
+        // force() at most once per interval; the owner calls sync() for the tail once the
+        // interval has passed, so a crash loses at most about that much typing
+        INTERVAL,
+        // leave it to the OS
+        NEVER;
+
+        public static SyncPolicy fromSystemProperties() {
+            return valueOf(System.getProperty("diary.draft.sync", INTERVAL.name()).toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Path file;
+    private final SyncPolicy syncPolicy;
+    private final long syncIntervalNanos;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(16 * 1024);
+    private long lastSync = System.nanoTime();
+    private boolean unsynced;
+
+    public DraftJournal(Path file, SyncPolicy syncPolicy, long syncIntervalMillis) throws IOException {
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+        this.syncIntervalNanos = syncIntervalMillis * 1_000_000L;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = openChannel(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    public List<JournalRecord> replay() throws IOException {
+        long length = channel.size();
+        ByteBuffer contents = ByteBuffer.allocate((int) Math.min(length, Integer.MAX_VALUE));
+        channel.position(0);
+        while (contents.hasRemaining() && channel.read(contents) >= 0) {
+            // read until full
+        }
+        contents.flip();
+
+        List<JournalRecord> records = new ArrayList<>();
+        int good = 0;
+        while (contents.remaining() >= HEADER_BYTES) {
+            int recordLength = contents.getInt();
+            int checksum = contents.getInt();
+            if (recordLength <= 0 || recordLength > contents.remaining()) {
+                break;
+            }
+            ByteBuffer payload = contents.slice(contents.position(), recordLength);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            try {
+                records.add(JournalRecord.readFrom(payload));
+            } catch (RuntimeException ex) {
+                break;
+            }
+            contents.position(contents.position() + recordLength);
+            good = contents.position();
+        }
+
+        if (good < length) {
+            channel.truncate(good);
+            channel.force(false);
+        }
+        channel.position(good);
+        return records;
+    }
+
+    // One write for the whole batch, then a force() if the policy calls for one
+    public void append(List<JournalRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        int needed = 0;
+        for (JournalRecord record : records) {
+            needed += HEADER_BYTES + record.maxEncodedLength();
+        }
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocateDirect(Math.max(needed, buffer.capacity() * 2));
+        }
+
+        buffer.clear();
+        for (JournalRecord record : records) {
+            int start = buffer.position();
+            buffer.position(start + HEADER_BYTES);
+            record.writeTo(buffer);
+            int end = buffer.position();
+
+            crc.reset();
+            crc.update(buffer.slice(start + HEADER_BYTES, end - start - HEADER_BYTES));
+            buffer.putInt(start, end - start - HEADER_BYTES);
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        unsynced = true;
+
+        if (syncPolicy == SyncPolicy.ALWAYS
+                || (syncPolicy == SyncPolicy.INTERVAL && System.nanoTime() - lastSync >= syncIntervalNanos)) {
+            sync();
+        }
+    }
+
+    // Whether something appended is still waiting on a sync() the policy asks for
+    public boolean needsSync() {
+        return unsynced && syncPolicy != SyncPolicy.NEVER;
+    }
+
+    // Forces what has been appended so far unless the policy is NEVER; a Save goes through here
+    // so a finished entry does not wait out the interval
+    public void sync() throws IOException {
+        if (needsSync()) {
+            channel.force(false);
+            lastSync = System.nanoTime();
+            unsynced = false;
+        }
+    }
+
+    // Nothing left to recover
+    public void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        unsynced = true;
+        sync();
+    }
+
+    // Replaces the file with just these records, written beside it and moved over it so a
+    // crash leaves either the old journal or the new one
+    public void rewrite(List<JournalRecord> records) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel previous = channel;
+        channel = openChannel(temp);
+        try {
+            channel.truncate(0);
+            unsynced = false;
+            append(records);
+            channel.force(false);
+        } catch (IOException ex) {
+            channel.close();
+            channel = previous;
+            throw ex;
+        }
+        channel.close();
+        previous.close();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            channel = openChannel(file);
+            channel.position(channel.size());
+            lastSync = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+}
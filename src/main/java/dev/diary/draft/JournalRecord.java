@@ -0,0 +1,189 @@
+package dev.diary.draft;
+
+import dev.diary.model.EntryMood;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// One step in a draft's life. A draft is OPENed by its first keystroke, changed by EDITs and
+// MOODs, STORED once the database has given it an id, FINISHed when the user presses Save
+// and DONE once the finished text is in the database. Clear DISCARDs it instead, and it is
+// DONE once its autosaved row is deleted. Replaying the records in order rebuilds every
+// draft that is not DONE.
+public final class JournalRecord {
+    private static final EntryMood[] MOODS = EntryMood.values();
+    private static final byte NO_MOOD = -1;
+    private static final byte SEALED = 1;
+
+    public enum Type {
+        OPEN, EDIT, MOOD, STORED, FINISH, DONE, DISCARD
+    }
+
+    private final Type type;
+    private final long draftId;
+    private final int position;
+    private final int removed;
+    // The inserted text for EDIT, the title for OPEN and FINISH
+    private final String text;
+    private final EntryMood mood;
+    private final long entryId;
+    private final LocalDateTime createdAt;
+    // EDIT text encrypted with the user's content key
+    private final boolean sealed;
+
+    private JournalRecord(Type type, long draftId, int position, int removed, String text, EntryMood mood,
+                          long entryId, LocalDateTime createdAt, boolean sealed) {
+        this.type = type;
+        this.draftId = draftId;
+        this.position = position;
+        this.removed = removed;
+        this.text = text;
+        this.mood = mood;
+        this.entryId = entryId;
+        this.createdAt = createdAt;
+        this.sealed = sealed;
+    }
+
+    public static JournalRecord open(long draftId, String title, EntryMood mood) {
+        return new JournalRecord(Type.OPEN, draftId, 0, 0, title, mood, 0, null, false);
+    }
+
+    // Replaces `removed` chars at `position` with `inserted`
+    public static JournalRecord edit(long draftId, int position, int removed, String inserted) {
+        return new JournalRecord(Type.EDIT, draftId, position, removed, inserted, null, 0, null, false);
+    }
+
+    public static JournalRecord mood(long draftId, EntryMood mood) {
+        return new JournalRecord(Type.MOOD, draftId, 0, 0, null, mood, 0, null, false);
+    }
+
+    public static JournalRecord stored(long draftId, long entryId, LocalDateTime createdAt) {
+        return new JournalRecord(Type.STORED, draftId, 0, 0, null, null, entryId, createdAt, false);
+    }
+
+    public static JournalRecord finish(long draftId, String title, EntryMood mood) {
+        return new JournalRecord(Type.FINISH, draftId, 0, 0, title, mood, 0, null, false);
+    }
+
+    public static JournalRecord done(long draftId) {
+        return new JournalRecord(Type.DONE, draftId, 0, 0, null, null, 0, null, false);
+    }
+
+    public static JournalRecord discard(long draftId) {
+        return new JournalRecord(Type.DISCARD, draftId, 0, 0, null, null, 0, null, false);
+    }
+
+    public JournalRecord withText(String replacement, boolean sealedText) {
+        return new JournalRecord(type, draftId, position, removed, replacement, mood, entryId, createdAt, sealedText);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getDraftId() {
+        return draftId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public EntryMood getMood() {
+        return mood;
+    }
+
+    public long getEntryId() {
+        return entryId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    // Upper bound on the encoded size, for sizing the write buffer
+    int maxEncodedLength() {
+        return 64 + (text == null ? 0 : text.length() * 3);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.put((byte) type.ordinal());
+        buffer.put(sealed ? SEALED : 0);
+        buffer.putLong(draftId);
+        switch (type) {
+            case OPEN, FINISH -> {
+                putString(buffer, text);
+                buffer.put(mood == null ? NO_MOOD : (byte) mood.ordinal());
+            }
+            case EDIT -> {
+                buffer.putInt(position);
+                buffer.putInt(removed);
+                putString(buffer, text);
+            }
+            case MOOD -> buffer.put(mood == null ? NO_MOOD : (byte) mood.ordinal());
+            case STORED -> {
+                buffer.putLong(entryId);
+                putString(buffer, createdAt.toString());
+            }
+            case DONE, DISCARD -> {
+            }
+        }
+    }
+
+    // The caller has already checked the record's checksum, so only an unknown type can fail
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= Type.values().length) {
+            throw new IllegalArgumentException("Unknown journal record type " + ordinal);
+        }
+        Type type = Type.values()[ordinal];
+        boolean sealed = buffer.get() == SEALED;
+        long draftId = buffer.getLong();
+        return switch (type) {
+            case OPEN -> open(draftId, getString(buffer), getMood(buffer));
+            case FINISH -> finish(draftId, getString(buffer), getMood(buffer));
+            case EDIT -> {
+                int position = buffer.getInt();
+                int removed = buffer.getInt();
+                yield edit(draftId, position, removed, null).withText(getString(buffer), sealed);
+            }
+            case MOOD -> mood(draftId, getMood(buffer));
+            case STORED -> {
+                long entryId = buffer.getLong();
+                yield stored(draftId, entryId, LocalDateTime.parse(getString(buffer)));
+            }
+            case DONE -> done(draftId);
+            case DISCARD -> discard(draftId);
+        };
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static EntryMood getMood(ByteBuffer buffer) {
+        byte ordinal = buffer.get();
+        return ordinal < 0 || ordinal >= MOODS.length ? null : MOODS[ordinal];
+    }
+}
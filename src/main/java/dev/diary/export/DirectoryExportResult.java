@@ -0,0 +1,41 @@
+package dev.diary.export;
+
+import java.nio.file.Path;
+
+public class DirectoryExportResult {
+    private final Path directory;
+    private final long writtenCount;
+    private final long skippedCount;
+    private final long removedCount;
+    private final long elapsedMillis;
+
+    public DirectoryExportResult(Path directory, long writtenCount, long skippedCount, long removedCount, long elapsedMillis) {
+        this.directory = directory;
+        this.writtenCount = writtenCount;
+        this.skippedCount = skippedCount;
+        this.removedCount = removedCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    // Entries whose file was already at least as new as the entry
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    // Files left from entries that have been deleted since the last export
+    public long getRemovedCount() {
+        return removedCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
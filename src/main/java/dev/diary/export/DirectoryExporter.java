@@ -0,0 +1,194 @@
+package dev.diary.export;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Writes one memories-style text file per entry. Rows stream from the database on the calling
+// thread while a small pool writes the files; an entry whose file is already newer than its
+// updated_at is left alone, so exporting into the same directory again only touches edits.
+// Files of entries deleted since the last export are removed once every entry has been written;
+// the directory may be shared, so a file is only removed when no user has its entry any more.
+public class DirectoryExporter {
+    private static final int WRITER_THREADS = Integer.getInteger("diary.export.threads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final DiaryEntryDAO diaryEntryDAO;
+    // Turns a stored entry into the one written out, e.g. by decrypting its content
+    private final UnaryOperator<DiaryEntry> reader;
+
+    public DirectoryExporter(DiaryEntryDAO diaryEntryDAO, UnaryOperator<DiaryEntry> reader) {
+        this.diaryEntryDAO = diaryEntryDAO;
+        this.reader = reader;
+    }
+
+    public DirectoryExportResult export(Long userId, Path directory, ExportProgressListener progress) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        long total = diaryEntryDAO.countByUserId(userId);
+        progress.onProgress(0, total);
+
+        Files.createDirectories(directory);
+        Map<Long, Path> existing = existingFiles(directory);
+
+        AtomicLong written = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        // Caps the entries waiting for a writer, so a slow disk cannot pull the whole history into memory
+        Semaphore inFlight = new Semaphore(WRITER_THREADS * 4);
+        ExecutorService writers = newWriterPool();
+
+        try {
+            diaryEntryDAO.<IOException>forEachByUserId(userId, entry -> {
+                IOException failed = failure.get();
+                if (failed != null) {
+                    throw failed;
+                }
+                acquire(inFlight);
+                Path previous = existing.remove(entry.getId());
+                writers.execute(() -> {
+                    try {
+                        if (writeIfChanged(directory, previous, entry)) {
+                            written.incrementAndGet();
+                        } else {
+                            skipped.incrementAndGet();
+                        }
+                    } catch (IOException ex) {
+                        failure.compareAndSet(null, ex);
+                    } catch (RuntimeException ex) {
+                        // Anything else would die with the writer thread and the export would look complete
+                        failure.compareAndSet(null, new IOException("Could not export entry " + entry.getId(), ex));
+                    } finally {
+                        inFlight.release();
+                    }
+                    long done = written.get() + skipped.get();
+                    if (done % PROGRESS_INTERVAL == 0) {
+                        progress.onProgress(done, Math.max(total, done));
+                    }
+                });
+            });
+        } finally {
+            writers.shutdown();
+            awaitWriters(writers);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        long removed = removeStale(existing);
+        long done = written.get() + skipped.get();
+        progress.onProgress(done, done);
+        return new DirectoryExportResult(directory, written.get(), skipped.get(), removed,
+                System.currentTimeMillis() - start);
+    }
+
+    // True if the file was (re)written, false if the one on disk was already current
+    private boolean writeIfChanged(Path directory, Path previous, DiaryEntry entry) throws IOException {
+        Path target = directory.resolve(MemoryFileFormat.fileName(entry));
+        if (target.equals(previous) && isCurrent(target, entry)) {
+            return false;
+        }
+
+        // Only entries that are actually rewritten get decrypted
+        String text;
+        try {
+            text = MemoryFileFormat.render(reader.apply(entry));
+        } catch (IllegalStateException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        Path temp = Files.createTempFile(directory, ".memory-", ".part");
+        try {
+            Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+            ExportFiles.moveIntoPlace(temp, target);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+
+        // A renamed entry gets a new file name; drop the one written under the old title
+        if (previous != null && !previous.equals(target)) {
+            Files.deleteIfExists(previous);
+        }
+        return true;
+    }
+
+    // Files no entry of this user claimed: either another user's export or a deleted entry's
+    private long removeStale(Map<Long, Path> unclaimed) throws SQLException, IOException {
+        long removed = 0;
+        for (Map.Entry<Long, Path> file : unclaimed.entrySet()) {
+            if (!diaryEntryDAO.existsById(file.getKey()) && Files.deleteIfExists(file.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isCurrent(Path file, DiaryEntry entry) throws IOException {
+        if (entry.getUpdatedAt() == null) {
+            return false;
+        }
+        FileTime modified = Files.getLastModifiedTime(file);
+        FileTime updated = FileTime.from(entry.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant());
+        return modified.compareTo(updated) >= 0;
+    }
+
+    // Entry id -> file already exported for it, from the id suffix in the file name
+    private static Map<Long, Path> existingFiles(Path directory) throws IOException {
+        Map<Long, Path> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.txt")) {
+            for (Path file : stream) {
+                Long entryId = MemoryFileFormat.entryIdOf(file.getFileName().toString());
+                if (entryId != null) {
+                    files.put(entryId, file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void acquire(Semaphore permits) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", ex);
+        }
+    }
+
+    private static void awaitWriters(ExecutorService writers) throws IOException {
+        try {
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException ex) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", ex);
+        }
+    }
+
+    private static ExecutorService newWriterPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "diary-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package dev.diary.export;
+
+@FunctionalInterface
+public interface ExportProgressListener {
+    ExportProgressListener NONE = (done, total) -> {};
+
+    // Called from the exporting thread; total is an estimate taken when the export started
+    void onProgress(long done, long total);
+}
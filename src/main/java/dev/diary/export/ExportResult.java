@@ -0,0 +1,33 @@
+package dev.diary.export;
+
+import java.nio.file.Path;
+
+public class ExportResult {
+    private final Path path;
+    private final long entryCount;
+    private final long bytesWritten;
+    private final long elapsedMillis;
+
+    public ExportResult(Path path, long entryCount, long bytesWritten, long elapsedMillis) {
+        this.path = path;
+        this.entryCount = entryCount;
+        this.bytesWritten = bytesWritten;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,121 @@
+package dev.diary.export;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.function.UnaryOperator;
+
+// Writes every entry of one user as a JSON object per line. Rows are streamed from the
+// database and encoded into a fixed buffer, so memory use does not grow with the history.
+public class JsonlExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final DiaryEntryDAO diaryEntryDAO;
+    // Turns a stored entry into the one written out, e.g. by decrypting its content
+    private final UnaryOperator<DiaryEntry> reader;
+
+    public JsonlExporter(DiaryEntryDAO diaryEntryDAO, UnaryOperator<DiaryEntry> reader) {
+        this.diaryEntryDAO = diaryEntryDAO;
+        this.reader = reader;
+    }
+
+    // The file only appears at target once it is complete; a failed export leaves
+    // any previous file there untouched
+    public ExportResult export(Long userId, Path target, ExportProgressListener progress) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        long total = diaryEntryDAO.countByUserId(userId);
+        progress.onProgress(0, total);
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+
+        long[] written = {0};
+        long bytes;
+        try (ChannelWriter out = new ChannelWriter(FileChannel.open(temp, StandardOpenOption.WRITE), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(1024);
+            diaryEntryDAO.<IOException>forEachByUserId(userId, entry -> {
+                line.setLength(0);
+                appendEntry(line, reader.apply(entry));
+                out.write(line);
+
+                written[0]++;
+                if (written[0] % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(written[0], Math.max(total, written[0]));
+                }
+            });
+            out.sync();
+            bytes = out.getBytesWritten();
+        } catch (SQLException | IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+
+        ExportFiles.moveIntoPlace(temp, target);
+        progress.onProgress(written[0], written[0]);
+        return new ExportResult(target, written[0], bytes, System.currentTimeMillis() - start);
+    }
+
+    private static void appendEntry(StringBuilder line, DiaryEntry entry) {
+        line.append("{\"id\":").append(entry.getId());
+        line.append(",\"title\":");
+        appendString(line, entry.getTitle());
+        line.append(",\"content\":");
+        appendString(line, entry.getContent());
+        line.append(",\"mood\":");
+        appendString(line, entry.getMood() == null ? null : entry.getMood().name());
+        line.append(",\"encrypted\":").append(entry.isEncrypted());
+        line.append(",\"createdAt\":");
+        appendTimestamp(line, entry.getCreatedAt());
+        line.append(",\"updatedAt\":");
+        appendTimestamp(line, entry.getUpdatedAt());
+        line.append("}\n");
+    }
+
+    private static void appendTimestamp(StringBuilder line, LocalDateTime time) {
+        appendString(line, time == null ? null : time.toString());
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
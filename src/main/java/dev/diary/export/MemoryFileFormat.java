@@ -0,0 +1,113 @@
+package dev.diary.export;
+
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The plain-text layout of files in memories/: one entry per file, a short header, then the text
+public final class MemoryFileFormat {
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // Pinned to English month names, so a file written under one locale imports under any other
+    private static final DateTimeFormatter HEADER_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm", Locale.ENGLISH);
+    // yyyyMMdd_Title-id<id>.txt; the id keeps two same-day entries with one title apart. Older
+    // builds wrote yyyyMMdd_Title.txt with only letters, digits and '_' in the title, so no file
+    // they left in memories/ has the "-id" marker and none is ever taken for an exported entry.
+    private static final Pattern FILE_NAME = Pattern.compile("^\\d{8}_\\w*-id(\\d+)\\.txt$");
+
+    private MemoryFileFormat() {}
+
+    public static String fileName(DiaryEntry entry) {
+        return entry.getCreatedAt().format(FILE_DATE) + "_"
+                + entry.getTitle().replaceAll("[^a-zA-Z0-9]", "_") + "-id"
+                + entry.getId() + ".txt";
+    }
+
+    // The entry id a file name was written for, or null for anything else in the directory
+    public static Long entryIdOf(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    public static String render(DiaryEntry entry) {
+        return "Title: " + entry.getTitle() + "\n"
+                + "Date: " + entry.getCreatedAt().format(HEADER_DATE) + "\n"
+                + "Mood: " + entry.getMood() + "\n"
+                + "\n"
+                + entry.getContent() + "\n";
+    }
+
+    // Inverse of render; throws IllegalArgumentException naming what is wrong with the text
+    public static DiaryEntry parse(String text, Long userId) {
+        int position = 0;
+        String title = null;
+        String date = null;
+        String mood = null;
+        // Header lines run up to the first blank line; everything after it is the entry text
+        while (position < text.length()) {
+            int end = text.indexOf('\n', position);
+            if (end < 0) {
+                end = text.length();
+            }
+            String line = stripCarriageReturn(text.substring(position, end));
+            position = end + 1;
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.startsWith("Title: ")) {
+                title = line.substring(7);
+            } else if (line.startsWith("Date: ")) {
+                date = line.substring(6).trim();
+            } else if (line.startsWith("Mood: ")) {
+                mood = line.substring(6).trim();
+            }
+        }
+
+        if (title == null || date == null || mood == null) {
+            throw new IllegalArgumentException("Missing Title, Date or Mood header");
+        }
+        String content = position < text.length() ? text.substring(position) : "";
+        if (content.endsWith("\n")) {
+            content = stripCarriageReturn(content.substring(0, content.length() - 1));
+        }
+        if (content.isBlank()) {
+            throw new IllegalArgumentException("Entry has no text");
+        }
+
+        DiaryEntry entry = new DiaryEntry(title, content, userId, parseMood(mood));
+        entry.setCreatedAt(parseDate(date));
+        entry.setUpdatedAt(entry.getCreatedAt());
+        return entry;
+    }
+
+    private static EntryMood parseMood(String mood) {
+        try {
+            return EntryMood.valueOf(mood.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown mood: " + mood);
+        }
+    }
+
+    // Earlier builds wrote the header in the display locale, so that is tried second
+    private static LocalDateTime parseDate(String date) {
+        try {
+            return LocalDateTime.parse(date, HEADER_DATE);
+        } catch (DateTimeParseException ex) {
+            try {
+                return LocalDateTime.parse(date, DiaryEntrySummary.DISPLAY_DATE);
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Unreadable date: " + date);
+            }
+        }
+    }
+
+    private static String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
@@ -0,0 +1,223 @@
+package dev.diary.export;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// Reads memories-style text files back into entries. Files are parsed in parallel a chunk at a
+// time, and each chunk is handed to the sink while the next one is being parsed.
+public class MemoryFileImporter {
+    private static final int READER_THREADS = Integer.getInteger("diary.import.threads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int CHUNK_SIZE = 1_000;
+    // Export files are a few KB; one buffer per reader thread avoids allocating per file
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(16 * 1024));
+
+    @FunctionalInterface
+    public interface BatchSink {
+        void accept(List<DiaryEntry> batch) throws Exception;
+    }
+
+    private final DiaryEntryDAO diaryEntryDAO;
+
+    public MemoryFileImporter(DiaryEntryDAO diaryEntryDAO) {
+        this.diaryEntryDAO = diaryEntryDAO;
+    }
+
+    // Files matching an existing entry (same title, created in the same minute) are skipped, as
+    // are repeats within the directory. Each chunk is checked against the entries created in its
+    // own time span, which includes the chunks the sink has already stored; file names start with
+    // the date, so that span is narrow. Chunks already handed to the sink stay imported if the run
+    // is cancelled.
+    public MemoryImportResult importDirectory(Long userId, Path directory, BatchSink sink,
+                                              ExportProgressListener progress, BooleanSupplier cancelled) throws Exception {
+        long start = System.currentTimeMillis();
+        List<Path> files = listFiles(directory);
+        progress.onProgress(0, files.size());
+
+        int imported = 0;
+        int duplicates = 0;
+        List<String> failures = new ArrayList<>();
+        int done = 0;
+        boolean stopped = false;
+
+        ExecutorService readers = newReaderPool();
+        try {
+            List<Future<Parsed>> chunk = submit(readers, files, 0, userId);
+            for (int from = 0; from < files.size(); from += CHUNK_SIZE) {
+                if (cancelled.getAsBoolean()) {
+                    stopped = true;
+                    break;
+                }
+                List<Future<Parsed>> next = submit(readers, files, from + CHUNK_SIZE, userId);
+
+                List<DiaryEntry> parsedEntries = new ArrayList<>(chunk.size());
+                for (Future<Parsed> future : chunk) {
+                    Parsed parsed = await(future);
+                    if (parsed.error != null) {
+                        failures.add(parsed.file.getFileName() + ": " + parsed.error);
+                    } else {
+                        parsedEntries.add(parsed.entry);
+                    }
+                }
+                Set<String> seen = existingKeys(userId, parsedEntries);
+                List<DiaryEntry> batch = new ArrayList<>(parsedEntries.size());
+                for (DiaryEntry entry : parsedEntries) {
+                    if (seen.add(key(entry.getTitle(), entry.getCreatedAt()))) {
+                        batch.add(entry);
+                    } else {
+                        duplicates++;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    sink.accept(batch);
+                    imported += batch.size();
+                }
+
+                done += chunk.size();
+                progress.onProgress(done, files.size());
+                chunk = next;
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        return new MemoryImportResult(imported, duplicates, failures, stopped, System.currentTimeMillis() - start);
+    }
+
+    private static List<Future<Parsed>> submit(ExecutorService readers, List<Path> files, int from, Long userId) {
+        List<Future<Parsed>> futures = new ArrayList<>();
+        for (int i = from; i < Math.min(files.size(), from + CHUNK_SIZE); i++) {
+            Path file = files.get(i);
+            futures.add(readers.submit(() -> parse(file, userId)));
+        }
+        return futures;
+    }
+
+    private static Parsed parse(Path file, Long userId) {
+        try {
+            return new Parsed(file, MemoryFileFormat.parse(read(file), userId), null);
+        } catch (IOException ex) {
+            return new Parsed(file, null, "could not be read (" + ex.getMessage() + ")");
+        } catch (IllegalArgumentException ex) {
+            return new Parsed(file, null, ex.getMessage());
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large");
+            }
+            ByteBuffer buffer = READ_BUFFER.get();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate((int) size);
+                READ_BUFFER.set(buffer);
+            }
+            buffer.clear().limit((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer holds the whole file
+            }
+            buffer.flip();
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    }
+
+    // Keys of the stored entries created in the minutes the given entries span
+    private Set<String> existingKeys(Long userId, List<DiaryEntry> entries) throws SQLException {
+        Set<String> keys = new HashSet<>();
+        if (entries.isEmpty()) {
+            return keys;
+        }
+        LocalDateTime first = entries.get(0).getCreatedAt();
+        LocalDateTime last = first;
+        for (DiaryEntry entry : entries) {
+            if (entry.getCreatedAt().isBefore(first)) {
+                first = entry.getCreatedAt();
+            }
+            if (entry.getCreatedAt().isAfter(last)) {
+                last = entry.getCreatedAt();
+            }
+        }
+        LocalDateTime from = first.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime until = last.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        for (DiaryEntrySummary existing : diaryEntryDAO.findSummariesCreatedBetween(userId, from, until)) {
+            keys.add(key(existing.getTitle(), existing.getCreatedAt()));
+        }
+        return keys;
+    }
+
+    // Export files carry minute precision, so that is what existing entries are compared at
+    private static String key(String title, LocalDateTime createdAt) {
+        return title + '\u0000' + createdAt.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.txt")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        // Sorted so a restore inserts in the same order every time it is run
+        files.sort(null);
+        return files;
+    }
+
+    private static Parsed await(Future<Parsed> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed to read memory file", ex.getCause());
+        }
+    }
+
+    private static ExecutorService newReaderPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(READER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "diary-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Parsed {
+        private final Path file;
+        private final DiaryEntry entry;
+        private final String error;
+
+        private Parsed(Path file, DiaryEntry entry, String error) {
+            this.file = file;
+            this.entry = entry;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.diary.export;
+
+import java.util.List;
+
+public class MemoryImportResult {
+    private final int importedCount;
+    private final int duplicateCount;
+    private final List<String> failures;
+    private final boolean cancelled;
+    private final long elapsedMillis;
+
+    public MemoryImportResult(int importedCount, int duplicateCount, List<String> failures,
+                              boolean cancelled, long elapsedMillis) {
+        this.importedCount = importedCount;
+        this.duplicateCount = duplicateCount;
+        this.failures = List.copyOf(failures);
+        this.cancelled = cancelled;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    // Files matching an entry that already exists, or another file in the same import
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    // "file name: reason" for every file that could not be read or parsed
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -1,53 +1,161 @@
 package dev.diary.gui;
 
+import dev.diary.draft.DraftAutosaver;
+import dev.diary.export.MemoryFileFormat;
 import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
 import dev.diary.model.EntryMood;
+import dev.diary.model.MoodStreaks;
 import dev.diary.model.User;
+import dev.diary.service.AsyncDiaryService;
+import dev.diary.service.AsyncMoodAnalyticsService;
+import dev.diary.service.AsyncUserService;
 import dev.diary.service.DiaryService;
+import dev.diary.service.EntryChange;
+import dev.diary.service.EntryChangeListener;
+import dev.diary.service.MoodAnalyticsService;
 import dev.diary.service.UserService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class DiaryView implements View {
     private static final String EXPORT_PATH = "memories/";
-    private ListView<DiaryEntry> entriesList;
+    private static final String EXPORT_ARCHIVE = "Single archive (.jsonl)";
+    private static final String EXPORT_FILES = "One text file per entry";
+    private static final DateTimeFormatter ARCHIVE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    // Same order the DAO lists entries in: created_at DESC, id DESC
+    static final Comparator<DiaryEntrySummary> NEWEST_FIRST =
+            Comparator.comparing(DiaryEntrySummary::getCreatedAt)
+                    .thenComparing(DiaryEntrySummary::getId)
+                    .reversed();
+    private static final int TIMELINE_PAGE_SIZE = Integer.getInteger("diary.list.pageSize", 100);
+    private static final int TIMELINE_LOADED_PAGES = Integer.getInteger("diary.list.loadedPages", 6);
+    private ListView<DiaryEntrySummary> entriesList;
+    // The list shows either the paged timeline or a filtered or searched result held in full
+    private PagedEntryList timeline;
+    private final ObservableList<DiaryEntrySummary> listedEntries = FXCollections.observableArrayList();
     public TextField searchField;
     private final Stage stage;
     private final User user;
     private final UserService userService;
+    private final AsyncUserService asyncUserService;
     private final DiaryService diaryService;
+    private final AsyncDiaryService asyncDiaryService;
+    private final AsyncMoodAnalyticsService asyncAnalyticsService;
+    // Refresh, mood filter and search all replace the list, so a newer one supersedes an older one
+    private final LatestRequest<List<DiaryEntrySummary>> listRequest = new LatestRequest<>();
+    private final LatestRequest<MoodStreaks> streakRequest = new LatestRequest<>();
+    private final EntryChangeListener changeListener = change -> Platform.runLater(() -> applyChange(change));
+    // What the list currently shows, so a change knows whether its entry belongs in it
+    private EntryMood listedMood;
+    private String listedSearchTerm;
+    // The last search's results before the mood filter, so a longer query or another mood can
+    // be answered from them; dropped whenever an entry changes
+    private String lastSearchTerm;
+    private List<DiaryEntrySummary> lastSearchResults;
+    // Typing restarts it; the search runs once the user pauses
+    private final PauseTransition searchDelay = new PauseTransition(
+            Duration.millis(Integer.getInteger("diary.search.debounceMillis", 250)));
     private Scene scene;
     private TextArea diaryContent;
+    // Journals and stores what is typed; the editor only reports its changes
+    private final DraftAutosaver autosaver;
+    // Set while the view itself fills in the editor, which is not the user typing or choosing
+    private boolean replacingText;
     private ComboBox<EntryMood> moodSelector;
+    private Label streakLabel;
+    private Button exportAllButton;
+    private Button importButton;
+    // Set by the Cancel button; the running import checks it between chunks
+    private AtomicBoolean importCancelled;
+    private ProgressBar exportProgress;
 
     public DiaryView(Stage stage, User user, UserService userService) {
         this.stage = stage;
         this.user = user;
         this.userService = userService;
+        this.asyncUserService = new AsyncUserService(userService);
         this.diaryService = new DiaryService();
+        this.asyncDiaryService = new AsyncDiaryService(diaryService);
+        // Registers its own listener first, so its counts are current by the time ours asks for them
+        this.asyncAnalyticsService = new AsyncMoodAnalyticsService(new MoodAnalyticsService(diaryService));
+        diaryService.addChangeListener(changeListener);
         this.entriesList = new ListView<>();
 
         createUI();
+        this.autosaver = new DraftAutosaver(asyncDiaryService, user.getId(), DiaryView::newEntryTitle,
+                error -> Platform.runLater(() -> showAlert(Alert.AlertType.WARNING, "Autosave",
+                        "Autosave failed: " + FxTasks.messageOf(error))));
+        if (autosaver.getRecoveredText() != null) {
+            replaceText(autosaver.getRecoveredText());
+            restoreMood(autosaver.getRecoveredMood());
+        }
+        diaryContent.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (!replacingText) {
+                autosaver.textChanged(oldValue, newValue);
+            }
+        });
+        refreshEntriesList();
+        refreshStreaks();
+    }
+
+    private static String newEntryTitle() {
+        return "Entry - " + LocalDate.now();
+    }
+
+    private void replaceText(String text) {
+        replacingText = true;
+        try {
+            diaryContent.setText(text);
+        } finally {
+            replacingText = false;
+        }
+    }
+
+    // Without going through onAction, which would also filter the list by this mood
+    private void restoreMood(EntryMood mood) {
+        replacingText = true;
+        try {
+            moodSelector.setValue(mood);
+        } finally {
+            replacingText = false;
+        }
     }
 
     private void createUI() {
@@ -83,27 +191,46 @@ public class DiaryView implements View {
         Label welcomeLabel = new Label("Welcome, " + user.getUsername());
         welcomeLabel.setStyle("-fx-font-size: 14px;");
 
+        streakLabel = new Label();
+
         moodSelector = new ComboBox<>();
         moodSelector.getItems().addAll(EntryMood.values());
         moodSelector.setPromptText("Select Mood");
 
         moodSelector.setOnAction(event -> {
-            try {
-                EntryMood selectedMood = moodSelector.getValue();
-                if (selectedMood != null) {
-                    List<DiaryEntry> moodEntries = diaryService.getEntriesByMood(user.getId(), selectedMood);
-                    entriesList.getItems().clear();
-                    entriesList.getItems().addAll(moodEntries);
-                }
-            } catch (SQLException ex) {
-                showAlert(Alert.AlertType.ERROR, "Filter Error", ex.getMessage());
+            EntryMood selectedMood = moodSelector.getValue();
+            if (selectedMood == null || replacingText) {
+                return;
+            }
+            autosaver.moodChanged(selectedMood);
+            listedMood = selectedMood;
+            if (listedSearchTerm == null) {
+                loadEntries(() -> asyncDiaryService.getEntrySummariesByMood(user.getId(), selectedMood), "Filter Error");
+            } else if (lastSearchResults != null) {
+                showSearchResults();
+            } else if (!listRequest.runningProperty().get()) {
+                searchEntries(listedSearchTerm);
             }
         });
 
+        CheckBox encryptBox = new CheckBox("Encrypt new entries");
+        encryptBox.setSelected(user.isEncryptEntries());
+        encryptBox.setOnAction(event -> {
+            boolean encrypt = encryptBox.isSelected();
+            encryptBox.setDisable(true);
+            asyncUserService.setEntryEncryption(user, encrypt).whenCompleteAsync((ignored, error) -> {
+                encryptBox.setDisable(false);
+                if (error != null) {
+                    encryptBox.setSelected(!encrypt);
+                    showAlert(Alert.AlertType.ERROR, "Encryption Error",
+                            "Failed to change encryption: " + FxTasks.messageOf(error));
+                }
+            }, FxTasks.FX_THREAD);
+        });
 
         VBox topBox = new VBox(10);
         topBox.setAlignment(Pos.CENTER);
-        topBox.getChildren().addAll(headerText, welcomeLabel, moodSelector);
+        topBox.getChildren().addAll(headerText, welcomeLabel, streakLabel, moodSelector, encryptBox);
         return topBox;
     }
 
@@ -123,15 +250,23 @@ public class DiaryView implements View {
         Button saveButton = createStyledButton("Save Entry");
         Button clearButton = createStyledButton("Clear");
         Button logoutButton = createStyledButton("Logout");
+        exportAllButton = createStyledButton("Export All");
+        importButton = createStyledButton("Import");
 
         saveButton.setOnAction(e -> handleSave());
-        clearButton.setOnAction(e -> diaryContent.clear());
+        clearButton.setOnAction(e -> handleClear());
         logoutButton.setOnAction(e -> handleLogout());
+        exportAllButton.setOnAction(e -> exportAllEntries());
+        importButton.setOnAction(e -> importOrCancel());
+
+        exportProgress = new ProgressBar(0);
+        exportProgress.setPrefWidth(150);
+        exportProgress.setVisible(false);
 
         HBox bottomBox = new HBox(10);
         bottomBox.setAlignment(Pos.CENTER);
         bottomBox.setPadding(new Insets(10));
-        bottomBox.getChildren().addAll(saveButton, clearButton, logoutButton);
+        bottomBox.getChildren().addAll(saveButton, clearButton, exportAllButton, importButton, logoutButton, exportProgress);
         return bottomBox;
     }
 
@@ -152,6 +287,13 @@ public class DiaryView implements View {
 
         searchField = new TextField();
         searchField.setPromptText("Search entries...");
+        searchDelay.setOnFinished(e -> searchEntries(searchField.getText()));
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDelay.playFromStart());
+        // Enter skips the wait
+        searchField.setOnAction(e -> {
+            searchDelay.stop();
+            searchEntries(searchField.getText());
+        });
 
         // Entry control buttons
         Button viewButton = new Button("View Entry");
@@ -171,9 +313,16 @@ public class DiaryView implements View {
         buttonBox.getChildren().addAll(viewButton, exportButton, deleteButton);
         buttonBox.setAlignment(Pos.CENTER);
 
+        // Spinner over the list while a refresh, filter or search is in flight
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(40, 40);
+        loadingIndicator.setMouseTransparent(true);
+        loadingIndicator.visibleProperty().bind(listRequest.runningProperty());
+        StackPane listPane = new StackPane(entriesList, loadingIndicator);
+
         VBox leftBox = new VBox(10);
         leftBox.setPadding(new Insets(10));
-        leftBox.getChildren().addAll(searchField, entriesList, buttonBox);
+        leftBox.getChildren().addAll(searchField, listPane, buttonBox);
         leftBox.getStyleClass().add("left-box");
 
         return leftBox;
@@ -185,89 +334,254 @@ public class DiaryView implements View {
         HBox buttonBox = (HBox) leftBox.getChildren().get(2);
         buttonBox.getChildren().forEach(node -> node.setDisable(!enable));
     }
+    // The list only holds summaries, so the full entry is fetched by id when it is opened
+    private void withSelectedEntry(Consumer<DiaryEntry> action) {
+        DiaryEntrySummary selected = entriesList.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        asyncDiaryService.openEntry(selected.getId()).whenCompleteAsync((entry, error) -> {
+            if (error != null) {
+                showAlert(Alert.AlertType.ERROR, "Error",
+                        "Failed to load entry: " + FxTasks.messageOf(error));
+            } else if (entry.isEmpty()) {
+                showAlert(Alert.AlertType.WARNING, "Entry Not Found",
+                        "This entry no longer exists.");
+            } else {
+                action.accept(entry.get());
+            }
+        }, FxTasks.FX_THREAD);
+    }
+
     private void viewSelectedEntry() {
-        DiaryEntry selectedEntry = entriesList.getSelectionModel().getSelectedItem();
-        if (selectedEntry != null) {
-            Stage viewStage = new Stage();
-            viewStage.initModality(Modality.APPLICATION_MODAL);
-            viewStage.setTitle("View Entry - " + selectedEntry.getTitle());
+        withSelectedEntry(this::showEntry);
+    }
 
-            VBox content = new VBox(10);
-            content.setPadding(new Insets(15));
+    private void showEntry(DiaryEntry selectedEntry) {
+        Stage viewStage = new Stage();
+        viewStage.initModality(Modality.APPLICATION_MODAL);
+        viewStage.setTitle("View Entry - " + selectedEntry.getTitle());
 
-            Text titleText = new Text(selectedEntry.getTitle());
-            titleText.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        VBox content = new VBox(10);
+        content.setPadding(new Insets(15));
 
-            Text dateText = new Text("Created: " +
-                    selectedEntry.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")));
-            Text moodText = new Text("Mood: " + selectedEntry.getMood().toString());
+        Text titleText = new Text(selectedEntry.getTitle());
+        titleText.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
-            TextArea contentArea = new TextArea(selectedEntry.getContent());
-            contentArea.setWrapText(true);
-            contentArea.setEditable(false);
-            contentArea.setPrefRowCount(10);
+        Text dateText = new Text("Created: " +
+                selectedEntry.getCreatedAt().format(DiaryEntrySummary.DISPLAY_DATE));
+        Text moodText = new Text("Mood: " + selectedEntry.getMood().toString());
 
-            Button closeButton = new Button("Close");
-            closeButton.setOnAction(e -> viewStage.close());
+        TextArea contentArea = new TextArea(selectedEntry.getContent());
+        contentArea.setWrapText(true);
+        contentArea.setEditable(false);
+        contentArea.setPrefRowCount(10);
 
-            content.getChildren().addAll(titleText, dateText, moodText, contentArea, closeButton);
-            content.setAlignment(Pos.CENTER);
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(e -> viewStage.close());
 
-            Scene scene = new Scene(content, 400, 500);
-            viewStage.setScene(scene);
-            viewStage.showAndWait();
-        }
+        content.getChildren().addAll(titleText, dateText, moodText, contentArea, closeButton);
+        content.setAlignment(Pos.CENTER);
+
+        Scene scene = new Scene(content, 400, 500);
+        viewStage.setScene(scene);
+        viewStage.showAndWait();
     }
     private void exportSelectedEntry() {
-        DiaryEntry selectedEntry = entriesList.getSelectionModel().getSelectedItem();
-        if (selectedEntry != null) {
-            try {
-                // Create memories directory if it doesn't exist
-                File directory = new File(EXPORT_PATH);
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
+        withSelectedEntry(this::exportEntry);
+    }
 
-                // Create filename based on entry date and title
-                String filename = String.format("%s_%s.txt",
-                        selectedEntry.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                        selectedEntry.getTitle().replaceAll("[^a-zA-Z0-9]", "_"));
+    private void exportEntry(DiaryEntry selectedEntry) {
+        try {
+            // Create memories directory if it doesn't exist
+            File directory = new File(EXPORT_PATH);
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
 
-                Path filePath = Paths.get(EXPORT_PATH, filename);
+            Path filePath = Paths.get(EXPORT_PATH, MemoryFileFormat.fileName(selectedEntry));
+            Files.write(filePath, MemoryFileFormat.render(selectedEntry).getBytes(StandardCharsets.UTF_8));
 
-                // Write entry content to file
-                String content = String.format("""
-                    Title: %s
-                    Date: %s
-                    Mood: %s
-                    
-                    %s
-                    """,
-                        selectedEntry.getTitle(),
-                        selectedEntry.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")),
-                        selectedEntry.getMood(),
-                        selectedEntry.getContent());
+            showAlert(Alert.AlertType.INFORMATION, "Export Successful",
+                    "Entry exported to: " + filePath.toString());
 
-                Files.write(filePath, content.getBytes());
+        } catch (IOException ex) {
+            showAlert(Alert.AlertType.ERROR, "Export Error",
+                    "Failed to export entry: " + ex.getMessage());
+        }
+    }
 
-                showAlert(Alert.AlertType.INFORMATION, "Export Successful",
-                        "Entry exported to: " + filePath.toString());
+    private void exportAllEntries() {
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(EXPORT_ARCHIVE, EXPORT_ARCHIVE, EXPORT_FILES);
+        dialog.setTitle("Export All");
+        dialog.setHeaderText("Export every entry in your diary");
+        dialog.setContentText("Format:");
+        dialog.showAndWait().ifPresent(format -> {
+            if (EXPORT_FILES.equals(format)) {
+                runExport(asyncDiaryService.exportEntriesToDirectory(user.getId(), Paths.get(EXPORT_PATH), this::showExportProgress),
+                        result -> result.getWrittenCount() + " entries exported to: " + result.getDirectory()
+                                + " (" + result.getSkippedCount() + " unchanged, " + result.getRemovedCount() + " removed)");
+            } else {
+                // Rows stream from the database, so the progress bar is the only thing that
+                // grows with the size of the history
+                Path target = Paths.get(EXPORT_PATH, "diary_" + user.getUsername().replaceAll("[^a-zA-Z0-9]", "_")
+                        + "_" + LocalDateTime.now().format(ARCHIVE_STAMP) + ".jsonl");
+                runExport(asyncDiaryService.exportEntries(user.getId(), target, this::showExportProgress),
+                        result -> result.getEntryCount() + " entries exported to: " + result.getPath());
+            }
+        });
+    }
 
-            } catch (IOException ex) {
+    private <T> void runExport(CompletableFuture<T> export, Function<T, String> describe) {
+        exportAllButton.setDisable(true);
+        importButton.setDisable(true);
+        exportProgress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        exportProgress.setVisible(true);
+
+        export.whenCompleteAsync((result, error) -> {
+            exportAllButton.setDisable(false);
+            importButton.setDisable(false);
+            exportProgress.setVisible(false);
+            if (error != null) {
                 showAlert(Alert.AlertType.ERROR, "Export Error",
-                        "Failed to export entry: " + ex.getMessage());
+                        "Failed to export entries: " + FxTasks.messageOf(error));
+            } else {
+                showAlert(Alert.AlertType.INFORMATION, "Export Successful", describe.apply(result));
             }
+        }, FxTasks.FX_THREAD);
+    }
+
+    private void importOrCancel() {
+        if (importCancelled != null) {
+            importCancelled.set(true);
+            return;
+        }
+
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Import memories");
+        File defaultDirectory = new File(EXPORT_PATH);
+        if (defaultDirectory.isDirectory()) {
+            chooser.setInitialDirectory(defaultDirectory.getAbsoluteFile());
+        }
+        File directory = chooser.showDialog(stage);
+        if (directory == null) {
+            return;
         }
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        importCancelled = cancelled;
+        importButton.setText("Cancel Import");
+        exportAllButton.setDisable(true);
+        exportProgress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        exportProgress.setVisible(true);
+
+        asyncDiaryService.importMemoryFiles(user.getId(), directory.toPath(), this::showExportProgress, cancelled::get)
+                .whenCompleteAsync((result, error) -> {
+                    importCancelled = null;
+                    importButton.setText("Import");
+                    exportAllButton.setDisable(false);
+                    exportProgress.setVisible(false);
+                    if (error != null) {
+                        showAlert(Alert.AlertType.ERROR, "Import Error",
+                                "Failed to import entries: " + FxTasks.messageOf(error));
+                        return;
+                    }
+                    String message = result.getImportedCount() + " entries imported, "
+                            + result.getDuplicateCount() + " already present";
+                    if (!result.getFailures().isEmpty()) {
+                        message += ", " + result.getFailures().size() + " unreadable (first: "
+                                + result.getFailures().get(0) + ")";
+                    }
+                    showAlert(Alert.AlertType.INFORMATION,
+                            result.isCancelled() ? "Import Cancelled" : "Import Finished", message);
+                }, FxTasks.FX_THREAD);
+    }
+
+    // Called from the export and import threads
+    private void showExportProgress(long done, long total) {
+        Platform.runLater(() -> exportProgress.setProgress(total == 0 ? 1 : (double) done / total));
     }
 
+    // Combines with the mood filter. A query that only adds to the last one is answered by
+    // rescoring the last results instead of searching the whole account.
     private void searchEntries(String searchTerm) {
-        try {
-            entriesList.getItems().clear();
-            List<DiaryEntry> searchResults = diaryService.searchEntries(user.getId(), searchTerm);
-            entriesList.getItems().addAll(searchResults);
-        } catch (SQLException ex) {
-            showAlert(Alert.AlertType.ERROR, "Search Error", ex.getMessage());
+        if (searchTerm == null || searchTerm.isBlank()) {
+            listedSearchTerm = null;
+            lastSearchTerm = null;
+            lastSearchResults = null;
+            reloadListedEntries();
+            return;
+        }
+
+        String term = searchTerm.trim();
+        listedSearchTerm = term;
+        if (term.equals(lastSearchTerm) && lastSearchResults != null) {
+            listRequest.cancel();
+            showSearchResults();
+            return;
+        }
+
+        String previousTerm = lastSearchTerm;
+        List<DiaryEntrySummary> previousResults = lastSearchResults;
+        listRequest.run(() -> previousResults == null
+                        ? asyncDiaryService.searchEntrySummaries(user.getId(), term)
+                        : asyncDiaryService.refineEntrySummaries(user.getId(), term, previousTerm, previousResults),
+                results -> {
+                    lastSearchTerm = term;
+                    lastSearchResults = results;
+                    showSearchResults();
+                },
+                error -> showAlert(Alert.AlertType.ERROR, "Search Error", FxTasks.messageOf(error)));
+    }
+
+    private void showSearchResults() {
+        EntryMood mood = listedMood;
+        if (mood == null) {
+            showEntries(lastSearchResults);
+            return;
+        }
+        List<DiaryEntrySummary> matching = new ArrayList<>();
+        for (DiaryEntrySummary summary : lastSearchResults) {
+            if (summary.getMood() == mood) {
+                matching.add(summary);
+            }
         }
+        showEntries(matching);
+    }
+
+    private void showEntries(List<DiaryEntrySummary> entries) {
+        closeTimeline();
+        listedEntries.setAll(entries);
+        if (entriesList.getItems() != listedEntries) {
+            entriesList.setItems(listedEntries);
+        }
+    }
+
+    private void closeTimeline() {
+        if (timeline != null) {
+            timeline.close();
+            timeline = null;
+        }
+    }
+
+    private void refreshStreaks() {
+        streakRequest.run(() -> asyncAnalyticsService.getStreaks(user.getId(), LocalDate.now()),
+                streaks -> streakLabel.setText(streakText(streaks)),
+                error -> streakLabel.setText(""));
+    }
+
+    private static String streakText(MoodStreaks streaks) {
+        if (streaks.getLongestDays() == 0) {
+            return "";
+        }
+        return "Writing streak: " + streaks.getCurrentDays() + " days (longest " + streaks.getLongestDays() + ")";
+    }
+
+    // Replaces the list with the result once it arrives; the old items stay up meanwhile
+    private void loadEntries(Supplier<CompletableFuture<List<DiaryEntrySummary>>> request, String errorTitle) {
+        listRequest.run(request,
+                this::showEntries,
+                error -> showAlert(Alert.AlertType.ERROR, errorTitle, FxTasks.messageOf(error)));
     }
 
     private void handleSave() {
@@ -277,29 +591,30 @@ public class DiaryView implements View {
             return;
         }
 
-        try {
-            DiaryEntry entry = new DiaryEntry(
-                    "Entry - " + LocalDate.now(),
-                    diaryContent.getText(),
-                    user.getId(),
-                    moodSelector.getValue()
-            );
-            diaryService.saveEntry(entry);
-
+        // Done once the journal has it; the autosaver writes it to the database after that.
+        // The editor is read-only until then, since the next keystroke belongs to a new draft.
+        diaryContent.setEditable(false);
+        autosaver.finish(diaryContent.getText(), moodSelector.getValue()).whenCompleteAsync((saved, error) -> {
+            diaryContent.setEditable(true);
+            if (error != null) {
+                showAlert(Alert.AlertType.ERROR, "Error",
+                        "Failed to save entry: " + FxTasks.messageOf(error));
+                return;
+            }
             showAlert(Alert.AlertType.INFORMATION, "Success",
                     "Entry saved successfully!");
-            diaryContent.clear();
+            replaceText("");
             moodSelector.setValue(null);
-
-            // Refresh the entries list after saving
-            refreshEntriesList();
-        } catch (Exception ex) {
-            showAlert(Alert.AlertType.ERROR, "Error",
-                    "Failed to save entry: " + ex.getMessage());
-        }
+        }, FxTasks.FX_THREAD);
     }
+    // Not an edit of the draft: the autosaver drops it, along with any row it already wrote
+    private void handleClear() {
+        replaceText("");
+        autosaver.discard();
+    }
+
     private void deleteSelectedEntry() {
-        DiaryEntry selectedEntry = entriesList.getSelectionModel().getSelectedItem();
+        DiaryEntrySummary selectedEntry = entriesList.getSelectionModel().getSelectedItem();
         if (selectedEntry != null) {
             Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION,
                     "Are you sure you want to delete this entry?",
@@ -308,80 +623,191 @@ public class DiaryView implements View {
 
             confirmDialog.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.YES) {
-                    try {
-                        diaryService.deleteEntry(selectedEntry.getId());
-                        refreshEntriesList();
+                    asyncDiaryService.deleteEntry(user.getId(), selectedEntry.getId()).whenCompleteAsync((ignored, error) -> {
+                        if (error != null) {
+                            showAlert(Alert.AlertType.ERROR, "Delete Error",
+                                    "Failed to delete entry: " + FxTasks.messageOf(error));
+                            return;
+                        }
                         showAlert(Alert.AlertType.INFORMATION, "Success",
                                 "Entry deleted successfully");
-                    } catch (Exception ex) {
-                        showAlert(Alert.AlertType.ERROR, "Delete Error",
-                                "Failed to delete entry: " + ex.getMessage());
-                    }
+                    }, FxTasks.FX_THREAD);
                 }
             });
         }
     }
 
+    // The full timeline opens with one page; the rest arrives as the user scrolls
     private void refreshEntriesList() {
-        try {
-            entriesList.getItems().clear();
-            List<DiaryEntry> userEntries = diaryService.getUserEntries(user.getId());
-            entriesList.getItems().addAll(userEntries);
-        } catch (Exception ex) {
-            showAlert(Alert.AlertType.ERROR, "Error",
-                    "Failed to refresh entries: " + ex.getMessage());
+        listedMood = null;
+        listedSearchTerm = null;
+        listRequest.cancel();
+        closeTimeline();
+        timeline = new PagedEntryList(
+                (cursor, pageSize) -> asyncDiaryService.getEntrySummariesPage(user.getId(), cursor, pageSize),
+                TIMELINE_PAGE_SIZE, TIMELINE_LOADED_PAGES,
+                error -> showAlert(Alert.AlertType.ERROR, "Failed to refresh entries", FxTasks.messageOf(error)));
+        entriesList.setItems(timeline);
+    }
+
+    // Patches the one affected row instead of reloading the list, so selection survives
+    private void applyChange(EntryChange change) {
+        if (!user.getId().equals(change.getUserId())) {
+            return;
+        }
+        lastSearchResults = null;
+        refreshStreaks();
+
+        if (change.getType() == EntryChange.Type.RELOADED) {
+            reloadListedEntries();
+            return;
+        }
+        if (timeline != null) {
+            timeline.apply(change);
+            return;
+        }
+
+        ObservableList<DiaryEntrySummary> items = entriesList.getItems();
+        int existing = indexOfEntry(change.getEntryId());
+        if (change.getType() == EntryChange.Type.DELETED) {
+            if (existing >= 0) {
+                items.remove(existing);
+            }
+            return;
+        }
+
+        DiaryEntrySummary summary = change.getSummary();
+        if (listedSearchTerm != null) {
+            // Search results are in rank order and we can't tell if a new entry matches,
+            // so only rows already on screen are refreshed
+            if (existing >= 0 && listedMood != null && listedMood != summary.getMood()) {
+                items.remove(existing);
+            } else if (existing >= 0) {
+                items.set(existing, summary);
+            }
+            return;
+        }
+
+        boolean wasSelected = existing >= 0 && existing == entriesList.getSelectionModel().getSelectedIndex();
+        if (existing >= 0) {
+            items.remove(existing);
+        }
+        if (listedMood != null && listedMood != summary.getMood()) {
+            return;
+        }
+        int position = Collections.binarySearch(items, summary, NEWEST_FIRST);
+        int insertAt = position >= 0 ? position : -position - 1;
+        items.add(insertAt, summary);
+        if (wasSelected) {
+            entriesList.getSelectionModel().select(insertAt);
+        }
+    }
+
+    // Re-runs whichever query filled the list: a search, a mood filter or the full timeline
+    private void reloadListedEntries() {
+        EntryMood mood = listedMood;
+        String searchTerm = listedSearchTerm;
+        if (searchTerm != null) {
+            lastSearchResults = null;
+            searchEntries(searchTerm);
+        } else if (mood != null) {
+            loadEntries(() -> asyncDiaryService.getEntrySummariesByMood(user.getId(), mood), "Filter Error");
+        } else {
+            refreshEntriesList();
         }
     }
 
+    private int indexOfEntry(Long entryId) {
+        List<DiaryEntrySummary> items = entriesList.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId().equals(entryId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private void handleLogout() {
-        LoginView loginView = new LoginView(new Stage(), userService);
-        loginView.show();
-        close();
+        // Pending drafts are written while the user's key is still unlocked
+        scene.getRoot().setDisable(true);
+        autosaver.close().whenCompleteAsync((ignored, error) -> {
+            userService.logout(user);
+            LoginView loginView = new LoginView(new Stage(), userService);
+            loginView.show();
+            close();
+        }, FxTasks.FX_THREAD);
     }
 
     @Override
     public void show() {
         stage.setTitle("DiaryKeeper - " + user.getUsername());
         stage.setScene(scene);
+        // The window stays up until the drafts are written, since closing the last one exits
+        // the application and shuts the database down
+        stage.setOnCloseRequest(e -> {
+            e.consume();
+            scene.getRoot().setDisable(true);
+            close();
+        });
+        stage.setOnHidden(e -> autosaver.close());
         stage.show();
     }
 
+    // Tears down once the autosaver has closed; nothing here waits on the FX thread
     @Override
     public void close() {
-        stage.close();
+        searchDelay.stop();
+        autosaver.close().whenCompleteAsync((ignored, error) -> {
+            diaryService.removeChangeListener(changeListener);
+            listRequest.cancel();
+            streakRequest.cancel();
+            closeTimeline();
+            diaryService.forgetUser(user.getId());
+            stage.close();
+        }, FxTasks.FX_THREAD);
     }
 
-    private static class DiaryEntryCell extends ListCell<DiaryEntry> {
+    // Builds its labels once; scrolling only rebinds their text
+    private static class DiaryEntryCell extends ListCell<DiaryEntrySummary> {
+        private static final String[] MOOD_LABELS = new String[EntryMood.values().length];
+
+        static {
+            for (EntryMood mood : EntryMood.values()) {
+                MOOD_LABELS[mood.ordinal()] = "Mood: " + mood;
+            }
+        }
+
+        private final VBox container = new VBox(5);
+        private final Label titleLabel = new Label();
+        private final Label dateLabel = new Label();
+        private final Label moodLabel = new Label();
+
+        DiaryEntryCell() {
+            getStyleClass().add("entry-cell");
+            container.getStyleClass().add("entry-card");
+            titleLabel.getStyleClass().add("entry-title");
+            dateLabel.getStyleClass().add("entry-date");
+            moodLabel.getStyleClass().add("entry-mood");
+            container.getChildren().addAll(titleLabel, dateLabel, moodLabel);
+        }
+
         @Override
-        protected void updateItem(DiaryEntry entry, boolean empty) {
+        protected void updateItem(DiaryEntrySummary entry, boolean empty) {
             super.updateItem(entry, empty);
+            // A row on screen keeps its timeline page loaded, or asks for it again if it was dropped
+            if (!empty && getListView() != null && getListView().getItems() instanceof PagedEntryList timeline) {
+                timeline.showing(getIndex());
+            }
 
             if (empty || entry == null) {
                 setText(null);
                 setGraphic(null);
             } else {
-                VBox container = new VBox(5);
-
-                Label titleLabel = new Label(entry.getTitle());
-                titleLabel.setStyle("-fx-font-weight: bold;");
-
-                Label dateLabel = new Label(entry.getCreatedAt().format(
-                        DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")));
-                dateLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
-
-                Label moodLabel = new Label("Mood: " + entry.getMood().toString());
-                moodLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #888;");
-
-                container.getChildren().addAll(titleLabel, dateLabel, moodLabel);
-
-                // Add hover effect
-                container.setOnMouseEntered(e ->
-                        container.setStyle("-fx-background-color: #f0f0f0;"));
-                container.setOnMouseExited(e ->
-                        container.setStyle("-fx-background-color: transparent;"));
-
+                titleLabel.setText(entry.getTitle());
+                dateLabel.setText(entry.getDisplayDate());
+                moodLabel.setText(MOOD_LABELS[entry.getMood().ordinal()]);
                 setGraphic(container);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package dev.diary.gui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+final class FxTasks {
+    // Hand a future's continuation back to the JavaFX Application Thread
+    static final Executor FX_THREAD = Platform::runLater;
+
+    private FxTasks() {}
+
+    static String messageOf(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,50 @@
+package dev.diary.gui;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps only the newest of a stream of requests alive: starting one cancels the previous,
+// and a superseded result is dropped instead of overwriting fresher data.
+// Use from the JavaFX Application Thread only.
+final class LatestRequest<T> {
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(false);
+    private CompletableFuture<T> current;
+
+    void run(Supplier<CompletableFuture<T>> start, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        cancel();
+        CompletableFuture<T> request = start.get();
+        current = request;
+        running.set(true);
+
+        request.whenCompleteAsync((result, error) -> {
+            if (request != current) {
+                return;
+            }
+            current = null;
+            running.set(false);
+            if (error == null) {
+                onSuccess.accept(result);
+            } else if (!(error instanceof CancellationException)) {
+                onFailure.accept(error);
+            }
+        }, FxTasks.FX_THREAD);
+    }
+
+    void cancel() {
+        if (current != null) {
+            // A request still queued never runs; one already in the database just has its result ignored
+            current.cancel(false);
+            current = null;
+            running.set(false);
+        }
+    }
+
+    ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+}
@@ -1,5 +1,6 @@
 package dev.diary.gui;
 
+import dev.diary.service.AsyncUserService;
 import dev.diary.service.UserService;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -20,11 +21,13 @@ import javafx.stage.Stage;
 public class LoginView implements View {
     private final Stage stage;
     private final UserService userService;
+    private final AsyncUserService asyncUserService;
     private Scene scene;
 
     public LoginView(Stage stage, UserService userService) {
         this.stage = stage;
         this.userService = userService;
+        this.asyncUserService = new AsyncUserService(userService);
         createUI();
     }
 
@@ -73,31 +76,37 @@ public class LoginView implements View {
         GridPane.setHalignment(errorMessage, javafx.geometry.HPos.CENTER);
 
         // Event handlers
-        loginButton.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), errorMessage));
+        loginButton.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), errorMessage, loginButton));
         registerButton.setOnAction(e -> showRegisterView());
 
         scene = new Scene(gridPane, 400, 300);
         scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
     }
 
-    private void handleLogin(String username, String password, Text errorMessage) {
-        try {
-            userService.authenticateUser(username, password)
-                    .ifPresentOrElse(
-                            user -> {
-                                DiaryView diaryView = new DiaryView(new Stage(), user,userService);
-                                diaryView.show();
-                                close();
-                            },
-                            () -> {
-                                errorMessage.setText("✘ Invalid username or password");
-                                shake(errorMessage);
-                            }
-                    );
-        } catch (Exception ex) {
-            errorMessage.setText("✘ " + ex.getMessage());
-            shake(errorMessage);
-        }
+    private void handleLogin(String username, String password, Text errorMessage, Button loginButton) {
+        // Disabled until the database answers, so repeated clicks don't queue up logins
+        loginButton.setDisable(true);
+        errorMessage.setText("Signing in...");
+
+        asyncUserService.authenticateUser(username, password).whenCompleteAsync((result, error) -> {
+            loginButton.setDisable(false);
+            if (error != null) {
+                errorMessage.setText("✘ " + FxTasks.messageOf(error));
+                shake(errorMessage);
+                return;
+            }
+            result.ifPresentOrElse(
+                    user -> {
+                        DiaryView diaryView = new DiaryView(new Stage(), user,userService);
+                        diaryView.show();
+                        close();
+                    },
+                    () -> {
+                        errorMessage.setText("✘ Invalid username or password");
+                        shake(errorMessage);
+                    }
+            );
+        }, FxTasks.FX_THREAD);
     }
 
     private void showRegisterView() {
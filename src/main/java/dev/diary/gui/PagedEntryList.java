@@ -0,0 +1,397 @@
+package dev.diary.gui;
+
+import dev.diary.dao.Page;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.service.EntryChange;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// The user's whole timeline as a ListView model, without holding the whole timeline. Rows are
+// fetched a page at a time by keyset cursor: showing a row of the last loaded page requests the
+// next one in the background. Once more than maxLoadedPages are in memory, the page shown least
+// recently is dropped, however near it is to the rows on screen, and fetched again from its
+// cursor when one of its rows is shown. Rows of a page that is not in memory read as null until
+// it arrives. get() only reads; cells call showing() for the rows they display.
+// Use from the JavaFX Application Thread only.
+final class PagedEntryList extends ObservableListBase<DiaryEntrySummary> {
+
+    @FunctionalInterface
+    interface PageLoader {
+        CompletableFuture<Page<DiaryEntrySummary>> load(String cursor, int pageSize);
+    }
+
+    private final PageLoader loader;
+    private final int pageSize;
+    private final int maxLoadedPages;
+    private final Consumer<Throwable> onFailure;
+    private final Executor fxThread;
+    private final List<Slot> slots = new ArrayList<>();
+    private int size;
+    private boolean complete;
+    private boolean loadingNext;
+    // Bumped by every edit; a page read before an edit may be stale, so it is read again
+    private int version;
+    private long clock;
+    private Slot lastShown;
+    private boolean closed;
+
+    PagedEntryList(PageLoader loader, int pageSize, int maxLoadedPages, Consumer<Throwable> onFailure) {
+        this(loader, pageSize, maxLoadedPages, onFailure, FxTasks.FX_THREAD);
+    }
+
+    PagedEntryList(PageLoader loader, int pageSize, int maxLoadedPages, Consumer<Throwable> onFailure,
+                   Executor fxThread) {
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxLoadedPages = Math.max(2, maxLoadedPages);
+        this.onFailure = onFailure;
+        this.fxThread = fxThread;
+        loadNext();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // No side effects: the ListView also reads rows it only measures or never puts on screen
+    @Override
+    public DiaryEntrySummary get(int index) {
+        Objects.checkIndex(index, size);
+        int page = 0;
+        int start = 0;
+        while (start + slots.get(page).size <= index) {
+            start += slots.get(page).size;
+            page++;
+        }
+        Slot slot = slots.get(page);
+        return slot.items == null ? null : slot.items.get(index - start);
+    }
+
+    // Called by a cell that displays this row: keeps its page in memory, fetches it if it was
+    // dropped and reads one page ahead
+    void showing(int index) {
+        if (index < 0 || index >= size) {
+            return;
+        }
+        show(pageOf(index));
+    }
+
+    // Keeps loaded rows in step with an edit instead of reloading, so the scroll position holds
+    void apply(EntryChange change) {
+        version++;
+        switch (change.getType()) {
+            case CREATED -> insert(change.getSummary());
+            case UPDATED -> replace(change.getSummary());
+            case DELETED -> remove(change.getEntryId());
+            default -> {
+                // RELOADED replaces the whole list; the owner builds a new one
+            }
+        }
+    }
+
+    // Results still in flight are ignored from here on
+    void close() {
+        closed = true;
+    }
+
+    private void show(int page) {
+        Slot slot = slots.get(page);
+        slot.lastUse = ++clock;
+        load(slot);
+        if (slot == lastShown) {
+            return;
+        }
+        lastShown = slot;
+        // One page ahead of the one on screen, so scrolling down rarely waits
+        if (page + 1 < slots.size()) {
+            load(slots.get(page + 1));
+        } else {
+            loadNext();
+        }
+    }
+
+    private void loadNext() {
+        if (complete || loadingNext || closed) {
+            return;
+        }
+        loadingNext = true;
+        String cursor = slots.isEmpty() ? null : slots.get(slots.size() - 1).nextCursor;
+        int expectedVersion = version;
+        loader.load(cursor, pageSize).whenCompleteAsync((page, error) -> {
+            loadingNext = false;
+            if (closed) {
+                return;
+            }
+            if (error != null) {
+                onFailure.accept(error);
+                return;
+            }
+            if (version != expectedVersion) {
+                loadNext();
+                return;
+            }
+
+            Slot slot = new Slot(cursor);
+            slot.nextCursor = page.getNextCursor();
+            slot.setItems(new ArrayList<>(page.getItems()));
+            slot.lastUse = ++clock;
+            complete = !page.hasNext();
+
+            int start = size;
+            slots.add(slot);
+            size += slot.size;
+            if (slot.size > 0) {
+                beginChange();
+                nextAdd(start, size);
+                endChange();
+            }
+            evictExcept(slot);
+        }, fxThread);
+    }
+
+    // Re-reads a dropped page: the same number of rows after the same cursor
+    private void load(Slot slot) {
+        if (slot.items != null || slot.loading || closed) {
+            return;
+        }
+        if (slot.size == 0) {
+            slot.setItems(new ArrayList<>());
+            return;
+        }
+        slot.loading = true;
+        int expectedVersion = version;
+        loader.load(slot.cursor, slot.size).whenCompleteAsync((page, error) -> {
+            slot.loading = false;
+            if (closed) {
+                return;
+            }
+            if (error != null) {
+                onFailure.accept(error);
+                return;
+            }
+            if (version != expectedVersion || slot.items != null) {
+                // Cells showing its rows call showing() again
+                if (slot.items == null) {
+                    firePageReplaced(slot, slot.size);
+                }
+                return;
+            }
+            fill(slot, page.getItems());
+            evictExcept(slot);
+        }, fxThread);
+    }
+
+    private void fill(Slot slot, List<DiaryEntrySummary> items) {
+        int start = startOf(slot);
+        int previousSize = slot.size;
+        int common = Math.min(previousSize, items.size());
+
+        slot.setItems(new ArrayList<>(items));
+        size += slot.size - previousSize;
+
+        // Sizes only differ if someone else changed this user's entries since the page was read
+        beginChange();
+        if (common > 0) {
+            nextReplace(start, start + common, Collections.nCopies(common, null));
+        }
+        if (slot.size > previousSize) {
+            nextAdd(start + previousSize, start + slot.size);
+        } else if (slot.size < previousSize) {
+            nextRemove(start + slot.size, Collections.nCopies(previousSize - slot.size, null));
+        }
+        endChange();
+    }
+
+    // The rows of a dropped page are unknown, so an edit there reports the whole page as
+    // replaced; this also lets cells showing it ask for it again
+    private void firePageReplaced(Slot slot, int previousSize) {
+        if (slot.size == 0 && previousSize == 0) {
+            return;
+        }
+        int start = startOf(slot);
+        beginChange();
+        nextReplace(start, start + slot.size, Collections.nCopies(previousSize, null));
+        endChange();
+    }
+
+    private void evictExcept(Slot keep) {
+        int loaded = 0;
+        for (Slot slot : slots) {
+            if (slot.items != null) {
+                loaded++;
+            }
+        }
+        while (loaded > maxLoadedPages) {
+            Slot oldest = null;
+            for (Slot slot : slots) {
+                if (slot != keep && slot.items != null && (oldest == null || slot.lastUse < oldest.lastUse)) {
+                    oldest = slot;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            oldest.items = null;
+            loaded--;
+        }
+    }
+
+    // A new entry belongs to the first page whose last row is older than it. Past the loaded
+    // pages it is left for the page that will contain it.
+    private void insert(DiaryEntrySummary summary) {
+        Slot target = null;
+        for (Slot slot : slots) {
+            if (slot.last == null || DiaryView.NEWEST_FIRST.compare(summary, slot.last) < 0) {
+                target = slot;
+                break;
+            }
+        }
+        if (target == null) {
+            if (!complete || slots.isEmpty()) {
+                return;
+            }
+            target = slots.get(slots.size() - 1);
+        }
+
+        int previousSize = target.size;
+        target.addId(summary.getId());
+        if (target.last == null) {
+            target.last = summary;
+        }
+        size++;
+        if (target.items == null) {
+            firePageReplaced(target, previousSize);
+            return;
+        }
+
+        int position = Collections.binarySearch(target.items, summary, DiaryView.NEWEST_FIRST);
+        int offset = position >= 0 ? position : -position - 1;
+        target.items.add(offset, summary);
+        int index = startOf(target) + offset;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    // Updates never move an entry, since created_at does not change
+    private void replace(DiaryEntrySummary summary) {
+        int start = 0;
+        for (Slot slot : slots) {
+            if (slot.items != null) {
+                for (int i = 0; i < slot.items.size(); i++) {
+                    if (slot.items.get(i).getId().equals(summary.getId())) {
+                        DiaryEntrySummary old = slot.items.set(i, summary);
+                        beginChange();
+                        nextSet(start + i, old);
+                        endChange();
+                        return;
+                    }
+                }
+            }
+            start += slot.size;
+        }
+    }
+
+    private void remove(Long entryId) {
+        int start = 0;
+        for (Slot slot : slots) {
+            if (slot.removeId(entryId)) {
+                slot.size--;
+                size--;
+                if (slot.items == null) {
+                    firePageReplaced(slot, slot.size + 1);
+                    return;
+                }
+                for (int i = 0; i < slot.items.size(); i++) {
+                    if (slot.items.get(i).getId().equals(entryId)) {
+                        DiaryEntrySummary removed = slot.items.remove(i);
+                        beginChange();
+                        nextRemove(start + i, removed);
+                        endChange();
+                        return;
+                    }
+                }
+                return;
+            }
+            start += slot.size;
+        }
+    }
+
+    private int pageOf(int index) {
+        int page = 0;
+        int start = 0;
+        while (start + slots.get(page).size <= index) {
+            start += slots.get(page).size;
+            page++;
+        }
+        return page;
+    }
+
+    private int startOf(Slot target) {
+        int start = 0;
+        for (Slot slot : slots) {
+            if (slot == target) {
+                return start;
+            }
+            start += slot.size;
+        }
+        throw new IllegalStateException("Page is not part of this list");
+    }
+
+    // One page of the timeline. The ids, the row count and the last row stay when the rows are
+    // dropped, so edits can still find their page and a reload knows what to ask for.
+    private static final class Slot {
+        private final String cursor;
+        private String nextCursor;
+        private List<DiaryEntrySummary> items;
+        private long[] ids = new long[0];
+        private int size;
+        private DiaryEntrySummary last;
+        private long lastUse;
+        private boolean loading;
+
+        private Slot(String cursor) {
+            this.cursor = cursor;
+        }
+
+        private void setItems(List<DiaryEntrySummary> loaded) {
+            items = loaded;
+            size = loaded.size();
+            ids = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = loaded.get(i).getId();
+            }
+            if (size > 0) {
+                last = loaded.get(size - 1);
+            }
+        }
+
+        private void addId(long id) {
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+            size++;
+        }
+
+        private boolean removeId(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    long[] remaining = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, remaining, 0, i);
+                    System.arraycopy(ids, i + 1, remaining, i, ids.length - i - 1);
+                    ids = remaining;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.diary.gui;
 
+import dev.diary.service.AsyncUserService;
 import dev.diary.service.UserService;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -16,11 +17,13 @@ import javafx.stage.Stage;
 public class RegisterView implements View {
     private final Stage stage;
     private final UserService userService;
+    private final AsyncUserService asyncUserService;
     private Scene scene;
 
     public RegisterView(Stage stage, UserService userService) {
         this.stage = stage;
         this.userService = userService;
+        this.asyncUserService = new AsyncUserService(userService);
         createUI();
     }
 
@@ -60,7 +63,8 @@ public class RegisterView implements View {
                 emailField.getText(),
                 passwordField.getText(),
                 confirmPasswordField.getText(),
-                errorMessage
+                errorMessage,
+                registerButton
         ));
 
         backButton.setOnAction(e -> {
@@ -102,7 +106,7 @@ public class RegisterView implements View {
         inputField.setPrefWidth(250);
     }
 
-    private void handleRegistration(String username, String email, String password, String confirmPassword, Text errorMessage) {
+    private void handleRegistration(String username, String email, String password, String confirmPassword, Text errorMessage, Button registerButton) {
             //user content allowing empty string
         if (username == null || username.trim().isEmpty() ||email == null || email.trim().isEmpty() ||password == null || password.trim().isEmpty() || confirmPassword == null || confirmPassword.trim().isEmpty()) {
             errorMessage.setText(" All fields are required");
@@ -113,15 +117,18 @@ public class RegisterView implements View {
             return;
         }
 
-        try {
-            userService.registerUser(username, password, email);
+        registerButton.setDisable(true);
+        asyncUserService.registerUser(username, password, email).whenCompleteAsync((ignored, error) -> {
+            registerButton.setDisable(false);
+            if (error != null) {
+                errorMessage.setText("✘ " + FxTasks.messageOf(error));
+                return;
+            }
             showAlert("Registration Successful", "Please login with your new account");
             LoginView loginView = new LoginView(new Stage(), userService);
             loginView.show();
             close();
-        } catch (Exception ex) {
-            errorMessage.setText("✘ " + ex.getMessage());
-        }
+        }, FxTasks.FX_THREAD);
     }
 
     // ... (same helper methods as LoginView)
@@ -0,0 +1,149 @@
+package dev.diary.metrics;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+// Latency, calls, rows and errors for one DAO statement or service method. With metrics switched
+// off there is no histogram and time() is a plain call through, though the caller has still
+// allocated the lambda it passes. That is a few dozen bytes per service call, next to the
+// database round trip each one makes; statements are timed from StatementCache, which checks
+// isEnabled() instead and allocates nothing when metrics are off.
+public final class MethodMetrics implements MethodMetricsMXBean {
+    private final String layer;
+    private final String name;
+    private final LatencyHistogram latency;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    MethodMetrics(String layer, String name, boolean enabled) {
+        this.layer = layer;
+        this.name = name;
+        this.latency = enabled ? new LatencyHistogram() : null;
+    }
+
+    // Rows are the size of a returned collection, or one for a present Optional
+    public <T, E extends Exception> T time(Call<T, E> call) throws E {
+        return time(call, MethodMetrics::rowsOf);
+    }
+
+    public <T, E extends Exception> T time(Call<T, E> call, ToIntFunction<? super T> rowCount) throws E {
+        if (latency == null) {
+            return call.call();
+        }
+        long started = System.nanoTime();
+        T result;
+        try {
+            result = call.call();
+        } catch (Exception ex) {
+            record(started, 0, true);
+            throw ex;
+        }
+        record(started, result == null ? 0 : rowCount.applyAsInt(result), false);
+        return result;
+    }
+
+    public <E extends Exception> void run(Action<E> action) throws E {
+        if (latency == null) {
+            action.run();
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            action.run();
+        } catch (Exception ex) {
+            record(started, 0, true);
+            throw ex;
+        }
+        record(started, 0, false);
+    }
+
+    // For callers that time a span themselves, such as a statement from execute() to close()
+    public boolean isEnabled() {
+        return latency != null;
+    }
+
+    public void record(long startedNanos, long rowCount, boolean failed) {
+        if (latency == null) {
+            return;
+        }
+        latency.record(System.nanoTime() - startedNanos);
+        rows.add(rowCount);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    @Override
+    public String getLayer() {
+        return layer;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency == null ? 0 : latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency == null ? 0 : latency.getMean() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency == null ? 0 : latency.percentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency == null ? 0 : latency.percentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency == null ? 0 : latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s calls=%d errors=%d rows=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus",
+                layer, name, getCalls(), getErrors(), getRows(),
+                getMeanMicros(), getP50Micros(), getP99Micros(), getMaxMicros());
+    }
+
+    private static int rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 0;
+    }
+}
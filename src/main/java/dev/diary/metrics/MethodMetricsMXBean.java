@@ -0,0 +1,22 @@
+package dev.diary.metrics;
+
+// What JConsole and other JMX clients see for one instrumented operation; times in microseconds
+public interface MethodMetricsMXBean {
+    String getLayer();
+
+    String getName();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
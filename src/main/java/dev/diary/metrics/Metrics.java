@@ -0,0 +1,108 @@
+package dev.diary.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Every instrumented operation, keyed by layer and name. Switched on with
+// -Ddiary.metrics.enabled=true: each operation is then registered with the platform MBean server
+// as dev.diary:type=<layer>,name=<name> and a snapshot is written to diary.metrics.dir every
+// diary.metrics.reportIntervalSeconds. Off, operations are still handed out but record nothing.
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("diary.metrics.enabled");
+
+    private static final ConcurrentMap<String, MethodMetrics> OPERATIONS = new ConcurrentHashMap<>();
+    private static final Comparator<MethodMetrics> ORDER =
+            Comparator.comparing(MethodMetrics::getLayer).thenComparing(MethodMetrics::getName);
+
+    static {
+        if (ENABLED) {
+            MetricsReporter.startFromSystemProperties();
+        }
+    }
+
+    private Metrics() {}
+
+    // Called once per operation, from a static field; a name registered twice shares one entry
+    public static MethodMetrics register(String layer, String name) {
+        return OPERATIONS.computeIfAbsent(layer + ":" + name, key -> {
+            MethodMetrics metrics = new MethodMetrics(layer, name, ENABLED);
+            if (ENABLED) {
+                registerMBean(metrics);
+            }
+            return metrics;
+        });
+    }
+
+    public static List<MethodMetrics> all() {
+        List<MethodMetrics> all = new ArrayList<>(OPERATIONS.values());
+        all.sort(ORDER);
+        return all;
+    }
+
+    // Only operations that have been called
+    public static String snapshotText() {
+        StringBuilder text = new StringBuilder();
+        text.append("DiaryKeeper metrics at ")
+                .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .append(System.lineSeparator());
+        text.append(String.format(Locale.ROOT, "%-8s %-48s %10s %8s %10s %10s %10s %10s %10s%n",
+                "layer", "name", "calls", "errors", "rows", "mean(us)", "p50(us)", "p99(us)", "max(us)"));
+        for (MethodMetrics metrics : all()) {
+            if (metrics.getCalls() == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.ROOT, "%-8s %-48s %10d %8d %10d %10.1f %10.1f %10.1f %10.1f%n",
+                    metrics.getLayer(), metrics.getName(), metrics.getCalls(), metrics.getErrors(),
+                    metrics.getRows(), metrics.getMeanMicros(), metrics.getP50Micros(),
+                    metrics.getP99Micros(), metrics.getMaxMicros()));
+        }
+        return text.toString();
+    }
+
+    public static String snapshotJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"timestamp\":\"")
+                .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .append("\",\"operations\":[");
+        boolean first = true;
+        for (MethodMetrics metrics : all()) {
+            if (metrics.getCalls() == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            // Layers and names are identifiers from the code, so they need no escaping
+            json.append(String.format(Locale.ROOT,
+                    "{\"layer\":\"%s\",\"name\":\"%s\",\"calls\":%d,\"errors\":%d,\"rows\":%d,"
+                            + "\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,\"maxMicros\":%.1f}",
+                    metrics.getLayer(), metrics.getName(), metrics.getCalls(), metrics.getErrors(),
+                    metrics.getRows(), metrics.getMeanMicros(), metrics.getP50Micros(),
+                    metrics.getP99Micros(), metrics.getMaxMicros()));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void registerMBean(MethodMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("dev.diary:type=" + metrics.getLayer() + ",name=" + metrics.getName());
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException ex) {
+            // Still recorded and reported, just not visible over JMX
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.diary.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Rewrites metrics.txt and metrics.json in diary.metrics.dir (default ~/.diarykeeper/metrics)
+// every diary.metrics.reportIntervalSeconds (default 60, 0 turns it off), and once more when the
+// JVM exits so a short session still leaves its numbers behind
+final class MetricsReporter {
+    private final Path directory;
+
+    private MetricsReporter(Path directory) {
+        this.directory = directory;
+    }
+
+    static void startFromSystemProperties() {
+        long intervalSeconds = Long.getLong("diary.metrics.reportIntervalSeconds", 60);
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        String configured = System.getProperty("diary.metrics.dir");
+        Path directory = configured != null
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".diarykeeper", "metrics");
+        MetricsReporter reporter = new MetricsReporter(directory);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "diary-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(reporter::writeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(reporter::writeQuietly, "diary-metrics-final"));
+    }
+
+    private void writeQuietly() {
+        try {
+            Files.createDirectories(directory);
+            write(directory.resolve("metrics.txt"), Metrics.snapshotText());
+            write(directory.resolve("metrics.json"), Metrics.snapshotJson());
+        } catch (IOException | RuntimeException ex) {
+            // Try again next interval; a failed report must not kill the scheduler thread
+        }
+    }
+
+    // Readers see either the previous snapshot or this one, never half of one
+    private static void write(Path target, String contents) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(temp, contents, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
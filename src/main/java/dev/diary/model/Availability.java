@@ -0,0 +1,24 @@
+package dev.diary.model;
+
+// Whether a username and email are still free to register
+public class Availability {
+    private final boolean usernameTaken;
+    private final boolean emailTaken;
+
+    public Availability(boolean usernameTaken, boolean emailTaken) {
+        this.usernameTaken = usernameTaken;
+        this.emailTaken = emailTaken;
+    }
+
+    public boolean isUsernameTaken() {
+        return usernameTaken;
+    }
+
+    public boolean isEmailTaken() {
+        return emailTaken;
+    }
+
+    public boolean isAvailable() {
+        return !usernameTaken && !emailTaken;
+    }
+}
@@ -0,0 +1,67 @@
+package dev.diary.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Just what the entry list renders; the content column is never loaded for it
+public class DiaryEntrySummary {
+    // For showing dates to the user, in their locale; files use their own fixed formats
+    public static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+
+    private final Long id;
+    private final Long userId;
+    private final String title;
+    private final EntryMood mood;
+    private final LocalDateTime createdAt;
+    private final String snippet;
+    // Formatted on first use; list cells rebind far more often than entries change
+    private String displayDate;
+
+    public DiaryEntrySummary(Long id, Long userId, String title, EntryMood mood, LocalDateTime createdAt, String snippet) {
+        this.id = id;
+        this.userId = userId;
+        this.title = title;
+        this.mood = mood;
+        this.createdAt = createdAt;
+        this.snippet = snippet;
+    }
+
+    public static DiaryEntrySummary of(DiaryEntry entry) {
+        return new DiaryEntrySummary(entry.getId(), entry.getUserId(), entry.getTitle(),
+                entry.getMood(), entry.getCreatedAt(), null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public EntryMood getMood() {
+        return mood;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getDisplayDate() {
+        String formatted = displayDate;
+        if (formatted == null) {
+            formatted = createdAt.format(DISPLAY_DATE);
+            displayDate = formatted;
+        }
+        return formatted;
+    }
+
+    // Null unless the query asked for one
+    public String getSnippet() {
+        return snippet;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.diary.model;
+
+import java.time.LocalDate;
+
+// Entry counts per mood for one period (a day, a week, a month or a rolling window)
+public class MoodBucket {
+    private static final EntryMood[] MOODS = EntryMood.values();
+
+    private final LocalDate start;
+    // Indexed by EntryMood.ordinal()
+    private final int[] counts;
+
+    public MoodBucket(LocalDate start, int[] counts) {
+        if (counts.length != MOODS.length) {
+            throw new IllegalArgumentException("Expected one count per mood");
+        }
+        this.start = start;
+        this.counts = counts.clone();
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public int getCount(EntryMood mood) {
+        return counts[mood.ordinal()];
+    }
+
+    public int getTotal() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Fraction of the period's entries with this mood; 0 for an empty period
+    public double getShare(EntryMood mood) {
+        int total = getTotal();
+        return total == 0 ? 0 : (double) counts[mood.ordinal()] / total;
+    }
+
+    // The most frequent mood, the earlier-declared one on a tie; null for an empty period
+    public EntryMood getDominantMood() {
+        int best = -1;
+        for (int m = 0; m < counts.length; m++) {
+            if (counts[m] > 0 && (best < 0 || counts[m] > counts[best])) {
+                best = m;
+            }
+        }
+        return best < 0 ? null : MOODS[best];
+    }
+}
@@ -0,0 +1,35 @@
+package dev.diary.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Calendar heatmap data: the dominant mood of each day from start to end, one byte per day
+public class MoodCalendar {
+    private static final EntryMood[] MOODS = EntryMood.values();
+
+    private final LocalDate start;
+    private final byte[] cells;
+
+    // cells[i] is a mood ordinal for start + i days, or negative for a day without entries
+    public MoodCalendar(LocalDate start, byte[] cells) {
+        this.start = start;
+        this.cells = cells;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public int getDayCount() {
+        return cells.length;
+    }
+
+    // The mood written most that day, or null if nothing was written or the day is out of range
+    public EntryMood getMood(LocalDate day) {
+        long offset = ChronoUnit.DAYS.between(start, day);
+        if (offset < 0 || offset >= cells.length || cells[(int) offset] < 0) {
+            return null;
+        }
+        return MOODS[cells[(int) offset]];
+    }
+}
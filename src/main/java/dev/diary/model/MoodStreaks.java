@@ -0,0 +1,40 @@
+package dev.diary.model;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Runs of consecutive calendar days with at least one entry
+public class MoodStreaks {
+    private final int currentDays;
+    private final int longestDays;
+    private final LocalDate longestStart;
+    private final Map<EntryMood, Integer> longestByMood;
+
+    public MoodStreaks(int currentDays, int longestDays, LocalDate longestStart, Map<EntryMood, Integer> longestByMood) {
+        this.currentDays = currentDays;
+        this.longestDays = longestDays;
+        this.longestStart = longestStart;
+        this.longestByMood = Collections.unmodifiableMap(new EnumMap<>(longestByMood));
+    }
+
+    // Ends today, or yesterday if nothing has been written yet today; 0 otherwise
+    public int getCurrentDays() {
+        return currentDays;
+    }
+
+    public int getLongestDays() {
+        return longestDays;
+    }
+
+    // First day of the longest streak; null if there are no entries
+    public LocalDate getLongestStart() {
+        return longestStart;
+    }
+
+    // Longest run of consecutive days that each had at least one entry with the mood
+    public int getLongestDays(EntryMood mood) {
+        return longestByMood.getOrDefault(mood, 0);
+    }
+}
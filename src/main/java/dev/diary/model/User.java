@@ -5,6 +5,8 @@ public class User extends BaseEntity{
     private String passwordHash;
     private String email;
     private UserRole role;
+    private String encryptionKey;
+    private boolean encryptEntries;
 
     public User(String username, String passwordHash, String email) {
         super();
@@ -45,4 +47,21 @@ public class User extends BaseEntity{
     public void setRole(UserRole role) {
         this.role = role;
     }
+
+    // Wrapped content key; null until the user first logs in after encryption was introduced
+    public String getEncryptionKey() {
+        return encryptionKey;
+    }
+
+    public void setEncryptionKey(String encryptionKey) {
+        this.encryptionKey = encryptionKey;
+    }
+
+    public boolean isEncryptEntries() {
+        return encryptEntries;
+    }
+
+    public void setEncryptEntries(boolean encryptEntries) {
+        this.encryptEntries = encryptEntries;
+    }
 }
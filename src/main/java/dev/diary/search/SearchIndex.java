@@ -0,0 +1,439 @@
+package dev.diary.search;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.dao.Page;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over each user's entries. A user's postings are built from
+// diary_entries on their first search and then kept current by DiaryService.
+public class SearchIndex {
+    private static final int BUILD_PAGE_SIZE = 500;
+    // Title words count this many times, so a title hit outranks a passing mention
+    private static final int TITLE_WEIGHT = 3;
+    // A prefix expansion ("walk" -> "walking") scores lower than the exact word
+    private static final double PREFIX_WEIGHT = 0.6;
+    // searchWithin rescores candidates only when the index holds at least this many times more
+    private static final int CANDIDATE_RATIO = 16;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final DiaryEntryDAO diaryEntryDAO;
+    private final Map<Long, UserIndex> users = new ConcurrentHashMap<>();
+
+    public SearchIndex(DiaryEntryDAO diaryEntryDAO) {
+        this.diaryEntryDAO = diaryEntryDAO;
+    }
+
+    // All query words must match (AND); each matches any indexed word it is a prefix of.
+    // Returns at most limit results, best match first and newest first among equals.
+    public List<DiaryEntrySummary> search(Long userId, String query, int limit) throws SQLException {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        UserIndex index = indexFor(userId);
+        index.lock.readLock().lock();
+        try {
+            return index.search(terms, limit);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Same ranking as search, but only the given entries are scored. Callers pass the results
+    // of an earlier query that this one refines, which already contain every possible match.
+    public List<DiaryEntrySummary> searchWithin(Long userId, String query, Collection<Long> entryIds, int limit) throws SQLException {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        UserIndex index = indexFor(userId);
+        index.lock.readLock().lock();
+        try {
+            return index.searchWithin(terms, entryIds, limit);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // True when every match for query is also a match for previousQuery, e.g. "walk" then
+    // "walking" or "walk park": each earlier word still prefixes some word of the new query
+    public static boolean refines(String query, String previousQuery) {
+        List<String> previous = Tokenizer.tokenize(previousQuery);
+        if (previous.isEmpty()) {
+            return false;
+        }
+        List<String> current = Tokenizer.tokenize(query);
+        for (String word : previous) {
+            boolean kept = false;
+            for (String candidate : current) {
+                if (candidate.startsWith(word)) {
+                    kept = true;
+                    break;
+                }
+            }
+            if (!kept) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Adds or replaces the entry; a user whose index has not been built yet is left alone,
+    // since the first search will read the entry from the database anyway
+    public void index(DiaryEntry entry) {
+        UserIndex index = users.get(entry.getUserId());
+        if (index == null) {
+            return;
+        }
+        index.lock.writeLock().lock();
+        try {
+            index.add(entry);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    // Call after the delete has committed. A build in progress holds the user's lock, so this
+    // waits for it and then removes the row it may have read; a build that starts later
+    // queries after the commit and never sees the row.
+    public void remove(Long userId, Long entryId) {
+        UserIndex index = users.get(userId);
+        if (index == null) {
+            return;
+        }
+        index.lock.writeLock().lock();
+        try {
+            index.remove(entryId);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    // Drops the user's postings; the next search rebuilds them from the database
+    public void evict(Long userId) {
+        users.remove(userId);
+    }
+
+    private UserIndex indexFor(Long userId) throws SQLException {
+        UserIndex index = users.computeIfAbsent(userId, id -> new UserIndex());
+        if (index.built) {
+            return index;
+        }
+
+        // Writers for this user wait on the lock while we build, then apply on top of it
+        index.lock.writeLock().lock();
+        try {
+            if (!index.built) {
+                String cursor = null;
+                do {
+                    Page<DiaryEntry> page = diaryEntryDAO.findPageByUserId(userId, cursor, BUILD_PAGE_SIZE);
+                    for (DiaryEntry entry : page.getItems()) {
+                        index.add(entry);
+                    }
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+                index.built = true;
+            }
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        return index;
+    }
+
+    // Documents are numbered densely per user so postings and scores can live in int/double
+    // arrays. Deleted documents leave a null slot until enough pile up to compact.
+    private static final class UserIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Posting> postings = new HashMap<>();
+        // Same postings, sorted so every word sharing a prefix is one contiguous range
+        private final TreeMap<String, Posting> sortedTerms = new TreeMap<>();
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private Document[] documents = new Document[64];
+        private int documentSlots;
+        private int liveDocuments;
+        private long totalLength;
+        private volatile boolean built;
+
+        private void add(DiaryEntry entry) {
+            remove(entry.getId());
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String token : Tokenizer.tokenize(entry.getTitle())) {
+                frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+                length += TITLE_WEIGHT;
+            }
+            // Encrypted content is ciphertext here; those entries are found by title only
+            if (!entry.isEncrypted()) {
+                for (String token : Tokenizer.tokenize(entry.getContent())) {
+                    frequencies.merge(token, 1, Integer::sum);
+                    length++;
+                }
+            }
+
+            int ordinal = documentSlots++;
+            if (ordinal == documents.length) {
+                documents = Arrays.copyOf(documents, ordinal * 2);
+            }
+            String[] terms = new String[frequencies.size()];
+            int[] termFrequencies = new int[terms.length];
+            int i = 0;
+            for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                Posting posting = postings.get(term.getKey());
+                if (posting == null) {
+                    posting = new Posting();
+                    postings.put(term.getKey(), posting);
+                    sortedTerms.put(term.getKey(), posting);
+                }
+                posting.append(ordinal, term.getValue());
+                termFrequencies[i] = term.getValue();
+                terms[i++] = term.getKey();
+            }
+
+            documents[ordinal] = new Document(DiaryEntrySummary.of(entry), terms, termFrequencies, length);
+            ordinalById.put(entry.getId(), ordinal);
+            liveDocuments++;
+            totalLength += length;
+        }
+
+        private void remove(Long entryId) {
+            Integer ordinal = ordinalById.remove(entryId);
+            if (ordinal == null) {
+                return;
+            }
+            Document document = documents[ordinal];
+            documents[ordinal] = null;
+            liveDocuments--;
+            totalLength -= document.length;
+            for (String term : document.terms) {
+                postings.get(term).live--;
+            }
+
+            if (documentSlots - liveDocuments > Math.max(1024, liveDocuments / 4)) {
+                compact();
+            }
+        }
+
+        private List<DiaryEntrySummary> search(Set<String> terms, int limit) {
+            double[] totals = null;
+            for (String term : terms) {
+                double[] termScores = score(term);
+                if (totals == null) {
+                    totals = termScores;
+                } else {
+                    for (int d = 0; d < documentSlots; d++) {
+                        totals[d] = totals[d] > 0 && termScores[d] > 0 ? totals[d] + termScores[d] : 0;
+                    }
+                }
+            }
+
+            long[] hits = new long[documentSlots];
+            int hitCount = 0;
+            for (int d = 0; d < documentSlots; d++) {
+                if (totals[d] > 0) {
+                    hits[hitCount++] = hit(totals[d], d);
+                }
+            }
+            return rank(hits, hitCount, limit);
+        }
+
+        // Walks each candidate's own word list instead of the postings, so the cost follows
+        // the number of candidates rather than the size of the index. Per entry that walk is
+        // slower than a postings scan, so it only pays off when the candidates are a small
+        // slice of the index; otherwise this is a plain search.
+        private List<DiaryEntrySummary> searchWithin(Set<String> terms, Collection<Long> entryIds, int limit) {
+            if ((long) entryIds.size() * CANDIDATE_RATIO > liveDocuments) {
+                return search(terms, limit);
+            }
+            double averageLength = liveDocuments == 0 ? 1 : (double) totalLength / liveDocuments;
+            long[] hits = new long[entryIds.size()];
+            int hitCount = 0;
+            for (Long entryId : entryIds) {
+                Integer ordinal = ordinalById.get(entryId);
+                if (ordinal == null) {
+                    continue;
+                }
+                Document document = documents[ordinal];
+                double total = 0;
+                for (String queryTerm : terms) {
+                    double best = 0;
+                    for (int t = 0; t < document.terms.length; t++) {
+                        String term = document.terms[t];
+                        if (term.startsWith(queryTerm)) {
+                            double weight = term.length() == queryTerm.length() ? 1.0 : PREFIX_WEIGHT;
+                            best = Math.max(best, weight * bm25(postings.get(term), document.frequencies[t], document.length, averageLength));
+                        }
+                    }
+                    if (best == 0) {
+                        total = 0;
+                        break;
+                    }
+                    total += best;
+                }
+                if (total > 0) {
+                    hits[hitCount++] = hit(total, ordinal);
+                }
+            }
+            return rank(hits, hitCount, limit);
+        }
+
+        // Pack (score, ordinal) into one long so ranking is a primitive sort; positive
+        // float bits order the same way the floats do
+        private static long hit(double score, int ordinal) {
+            return ((long) Float.floatToIntBits((float) score) << 32) | ordinal;
+        }
+
+        private List<DiaryEntrySummary> rank(long[] hits, int hitCount, int limit) {
+            Arrays.sort(hits, 0, hitCount);
+
+            int resultCount = Math.min(hitCount, limit);
+            List<DiaryEntrySummary> results = new ArrayList<>(resultCount);
+            int end = hitCount;
+            while (results.size() < resultCount) {
+                // Equal scores are ordered newest first; such runs are short in practice
+                int start = end - 1;
+                while (start > 0 && hits[start - 1] >>> 32 == hits[end - 1] >>> 32) {
+                    start--;
+                }
+                List<DiaryEntrySummary> run = new ArrayList<>(end - start);
+                for (int h = start; h < end; h++) {
+                    run.add(documents[(int) hits[h]].summary);
+                }
+                if (run.size() > 1) {
+                    run.sort(Comparator.comparing(DiaryEntrySummary::getCreatedAt).reversed());
+                }
+                results.addAll(run.subList(0, Math.min(run.size(), resultCount - results.size())));
+                end = start;
+            }
+            return results;
+        }
+
+        // BM25 over every indexed word starting with the query word; zero means no match
+        private double[] score(String queryTerm) {
+            double[] scores = new double[documentSlots];
+            double averageLength = liveDocuments == 0 ? 1 : (double) totalLength / liveDocuments;
+
+            for (Map.Entry<String, Posting> match : sortedTerms.subMap(queryTerm, queryTerm + Character.MAX_VALUE).entrySet()) {
+                Posting posting = match.getValue();
+                if (posting.live == 0) {
+                    continue;
+                }
+                double weight = match.getKey().equals(queryTerm) ? 1.0 : PREFIX_WEIGHT;
+
+                for (int p = 0; p < posting.size; p++) {
+                    Document document = documents[posting.ordinals[p]];
+                    if (document == null) {
+                        continue;
+                    }
+                    double score = weight * bm25(posting, posting.frequencies[p], document.length, averageLength);
+                    int d = posting.ordinals[p];
+                    if (score > scores[d]) {
+                        scores[d] = score;
+                    }
+                }
+            }
+            return scores;
+        }
+
+        private double bm25(Posting posting, int tf, int documentLength, double averageLength) {
+            double idf = Math.log(1 + (liveDocuments - posting.live + 0.5) / (posting.live + 0.5));
+            double norm = K1 * (1 - B + B * documentLength / averageLength);
+            return idf * tf * (K1 + 1) / (tf + norm);
+        }
+
+        // Renumbers live documents and drops postings that point only at deleted ones
+        private void compact() {
+            int[] remap = new int[documentSlots];
+            Document[] compacted = new Document[Math.max(64, liveDocuments * 2)];
+            int next = 0;
+            for (int d = 0; d < documentSlots; d++) {
+                if (documents[d] == null) {
+                    remap[d] = -1;
+                } else {
+                    remap[d] = next;
+                    compacted[next] = documents[d];
+                    ordinalById.put(documents[d].summary.getId(), next);
+                    next++;
+                }
+            }
+            documents = compacted;
+            documentSlots = next;
+
+            Iterator<Map.Entry<String, Posting>> terms = postings.entrySet().iterator();
+            while (terms.hasNext()) {
+                Map.Entry<String, Posting> term = terms.next();
+                if (!term.getValue().retain(remap)) {
+                    terms.remove();
+                    sortedTerms.remove(term.getKey());
+                }
+            }
+        }
+    }
+
+    private static final class Posting {
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int live;
+
+        // Ordinals only ever grow, so postings stay sorted without any extra work
+        private void append(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+
+        private boolean retain(int[] remap) {
+            int kept = 0;
+            for (int p = 0; p < size; p++) {
+                int ordinal = remap[ordinals[p]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    frequencies[kept] = frequencies[p];
+                    kept++;
+                }
+            }
+            size = kept;
+            live = kept;
+            return kept > 0;
+        }
+    }
+
+    private static final class Document {
+        private final DiaryEntrySummary summary;
+        private final String[] terms;
+        private final int[] frequencies;
+        private final int length;
+
+        private Document(DiaryEntrySummary summary, String[] terms, int[] frequencies, int length) {
+            this.summary = summary;
+            this.terms = terms;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.diary.service;
+
+import dev.diary.dao.Page;
+import dev.diary.export.DirectoryExportResult;
+import dev.diary.export.ExportProgressListener;
+import dev.diary.export.ExportResult;
+import dev.diary.export.MemoryImportResult;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+// Non-blocking face of DiaryService; every call runs on ServiceExecutors.io()
+public class AsyncDiaryService {
+    private final DiaryService diaryService;
+
+    public AsyncDiaryService(DiaryService diaryService) {
+        this.diaryService = diaryService;
+    }
+
+    public CompletableFuture<DiaryEntry> saveEntry(DiaryEntry entry) {
+        return ServiceExecutors.supply(() -> diaryService.saveEntry(entry));
+    }
+
+    public CompletableFuture<Void> updateEntry(DiaryEntry entry) {
+        return ServiceExecutors.supply(() -> {
+            diaryService.updateEntry(entry);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteEntry(Long userId, Long entryId) {
+        return ServiceExecutors.supply(() -> {
+            diaryService.deleteEntry(userId, entryId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Optional<DiaryEntry>> getEntryById(Long entryId) {
+        return ServiceExecutors.supply(() -> diaryService.getEntryById(entryId));
+    }
+
+    public CompletableFuture<Optional<DiaryEntry>> openEntry(Long entryId) {
+        return ServiceExecutors.supply(() -> diaryService.openEntry(entryId));
+    }
+
+    public CompletableFuture<List<DiaryEntrySummary>> getUserEntrySummaries(Long userId) {
+        return ServiceExecutors.supply(() -> diaryService.getUserEntrySummaries(userId));
+    }
+
+    public CompletableFuture<List<DiaryEntrySummary>> getEntrySummariesByMood(Long userId, EntryMood mood) {
+        return ServiceExecutors.supply(() -> diaryService.getEntrySummariesByMood(userId, mood));
+    }
+
+    public CompletableFuture<List<DiaryEntrySummary>> searchEntrySummaries(Long userId, String searchTerm) {
+        return ServiceExecutors.supply(() -> diaryService.searchEntrySummaries(userId, searchTerm));
+    }
+
+    public CompletableFuture<List<DiaryEntrySummary>> refineEntrySummaries(Long userId, String searchTerm, String previousTerm,
+                                                                           List<DiaryEntrySummary> previousResults) {
+        return ServiceExecutors.supply(() -> diaryService.refineEntrySummaries(userId, searchTerm, previousTerm, previousResults));
+    }
+
+    public CompletableFuture<Page<DiaryEntrySummary>> getEntrySummariesPage(Long userId, String cursor, int pageSize) {
+        return ServiceExecutors.supply(() -> diaryService.getEntrySummariesPage(userId, cursor, pageSize));
+    }
+
+    public CompletableFuture<ExportResult> exportEntries(Long userId, Path target, ExportProgressListener progress) {
+        return ServiceExecutors.supply(() -> diaryService.exportEntries(userId, target, progress));
+    }
+
+    public CompletableFuture<DirectoryExportResult> exportEntriesToDirectory(Long userId, Path directory, ExportProgressListener progress) {
+        return ServiceExecutors.supply(() -> diaryService.exportEntriesToDirectory(userId, directory, progress));
+    }
+
+    public CompletableFuture<MemoryImportResult> importMemoryFiles(Long userId, Path directory, ExportProgressListener progress,
+                                                                    BooleanSupplier cancelled) {
+        return ServiceExecutors.supply(() -> diaryService.importMemoryFiles(userId, directory, progress, cancelled));
+    }
+}
@@ -0,0 +1,19 @@
+package dev.diary.service;
+
+import dev.diary.model.MoodStreaks;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking face of MoodAnalyticsService; every call runs on ServiceExecutors.io()
+public class AsyncMoodAnalyticsService {
+    private final MoodAnalyticsService analyticsService;
+
+    public AsyncMoodAnalyticsService(MoodAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    public CompletableFuture<MoodStreaks> getStreaks(Long userId, LocalDate today) {
+        return ServiceExecutors.supply(() -> analyticsService.getStreaks(userId, today));
+    }
+}
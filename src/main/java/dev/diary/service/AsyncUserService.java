@@ -0,0 +1,33 @@
+package dev.diary.service;
+
+import dev.diary.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking face of UserService; every call runs on ServiceExecutors.io()
+public class AsyncUserService {
+    private final UserService userService;
+
+    public AsyncUserService(UserService userService) {
+        this.userService = userService;
+    }
+
+    public CompletableFuture<Optional<User>> authenticateUser(String username, String password) {
+        return ServiceExecutors.supply(() -> userService.authenticateUser(username, password));
+    }
+
+    public CompletableFuture<Void> registerUser(String username, String password, String email) {
+        return ServiceExecutors.supply(() -> {
+            userService.registerUser(username, password, email);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> setEntryEncryption(User user, boolean encrypt) {
+        return ServiceExecutors.supply(() -> {
+            userService.setEntryEncryption(user, encrypt);
+            return null;
+        });
+    }
+}
@@ -1,66 +1,376 @@
 package dev.diary.service;
 
+import dev.diary.cache.CacheStats;
+import dev.diary.cache.TtlCache;
+import dev.diary.crypto.EntryCipher;
+import dev.diary.crypto.EntryKeys;
 import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.dao.Page;
+import dev.diary.dao.PartialSaveException;
+import dev.diary.export.DirectoryExportResult;
+import dev.diary.export.DirectoryExporter;
+import dev.diary.export.ExportProgressListener;
+import dev.diary.export.ExportResult;
+import dev.diary.export.JsonlExporter;
+import dev.diary.export.MemoryFileImporter;
+import dev.diary.export.MemoryImportResult;
+import dev.diary.metrics.MethodMetrics;
+import dev.diary.metrics.Metrics;
 import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
 import dev.diary.model.EntryMood;
+import dev.diary.search.SearchIndex;
 
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 public class DiaryService {
+    // Ranked search shows the best matches; nobody scrolls past a few hundred
+    public static final int SEARCH_RESULT_LIMIT = 500;
+
+    private static final long CACHE_TTL_MILLIS = Long.getLong("diary.cache.ttlMillis", 300_000);
+    private static final int ENTRY_CACHE_SIZE = Integer.getInteger("diary.cache.entries", 1_000);
+    private static final int TIMELINE_CACHE_SIZE = Integer.getInteger("diary.cache.timelines", 16);
+
+    private static final MethodMetrics SAVE_ENTRY = timed("saveEntry");
+    private static final MethodMetrics IMPORT_ENTRIES = timed("importEntries");
+    private static final MethodMetrics UPDATE_ENTRY = timed("updateEntry");
+    private static final MethodMetrics DELETE_ENTRY = timed("deleteEntry");
+    private static final MethodMetrics GET_USER_ENTRIES = timed("getUserEntries");
+    private static final MethodMetrics SEARCH_ENTRIES = timed("searchEntries");
+    private static final MethodMetrics GET_ENTRIES_BY_MOOD = timed("getEntriesByMood");
+    private static final MethodMetrics GET_USER_ENTRY_SUMMARIES = timed("getUserEntrySummaries");
+    private static final MethodMetrics SEARCH_ENTRY_SUMMARIES = timed("searchEntrySummaries");
+    private static final MethodMetrics REFINE_ENTRY_SUMMARIES = timed("refineEntrySummaries");
+    private static final MethodMetrics GET_ENTRY_SUMMARIES_BY_MOOD = timed("getEntrySummariesByMood");
+    private static final MethodMetrics GET_ENTRY_SUMMARIES_PAGE = timed("getEntrySummariesPage");
+    private static final MethodMetrics GET_ENTRY_BY_ID = timed("getEntryById");
+    private static final MethodMetrics OPEN_ENTRY = timed("openEntry");
+    private static final MethodMetrics GET_RECENT_ENTRIES = timed("getRecentEntries");
+    private static final MethodMetrics GET_ENTRIES_PAGE = timed("getEntriesPage");
+    private static final MethodMetrics EXPORT_ENTRIES = timed("exportEntries");
+    private static final MethodMetrics EXPORT_ENTRIES_TO_DIRECTORY = timed("exportEntriesToDirectory");
+    private static final MethodMetrics IMPORT_MEMORY_FILES = timed("importMemoryFiles");
+
     private final DiaryEntryDAO diaryEntryDAO;
+    private final SearchIndex searchIndex;
+    private final TtlCache<Long, DiaryEntry> entryCache = new TtlCache<>(ENTRY_CACHE_SIZE, CACHE_TTL_MILLIS);
+    // userId -> that user's summaries, newest first
+    private final TtlCache<Long, List<DiaryEntrySummary>> timelineCache = new TtlCache<>(TIMELINE_CACHE_SIZE, CACHE_TTL_MILLIS);
+    private final List<EntryChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final EntryKeys entryKeys = EntryKeys.shared();
 
     public DiaryService() {
         this.diaryEntryDAO = new DiaryEntryDAO();
+        this.searchIndex = new SearchIndex(diaryEntryDAO);
     }
 
     public DiaryEntry saveEntry(DiaryEntry entry) throws Exception {
-        // Set timestamps if not already set
+        return SAVE_ENTRY.time(() -> {
+            // Set timestamps if not already set
+            LocalDateTime now = LocalDateTime.now();
+            if (entry.getCreatedAt() == null) {
+                entry.setCreatedAt(now);
+            }
+            entry.setUpdatedAt(now);
+
+            DiaryEntry stored = diaryEntryDAO.save(sealed(entry));
+            entry.setId(stored.getId());
+            timelineCache.invalidate(entry.getUserId());
+            searchIndex.index(stored);
+            publish(EntryChange.created(DiaryEntrySummary.of(entry)));
+            return entry;
+        }, saved -> 1);
+    }
+
+    // Bulk path for migrations from other journaling tools: validates everything up front,
+    // then inserts through the DAO's batched saveAll
+    public ImportResult importEntries(Collection<DiaryEntry> entries) throws Exception {
+        return IMPORT_ENTRIES.time(() -> {
+            Set<Long> userIds = new HashSet<>();
+            try {
+                return insertAll(entries, userIds);
+            } finally {
+                announceReload(userIds);
+            }
+        }, ImportResult::getImportedCount);
+    }
+
+    // Stores and indexes the entries and adds their owners to userIds; announcing the new rows is
+    // left to the caller, so a multi-chunk import can do it once at the end
+    private ImportResult insertAll(Collection<DiaryEntry> entries, Set<Long> userIds) throws Exception {
         LocalDateTime now = LocalDateTime.now();
-        if (entry.getCreatedAt() == null) {
-            entry.setCreatedAt(now);
+        for (DiaryEntry entry : entries) {
+            validateEntry(entry);
+            if (entry.getCreatedAt() == null) {
+                entry.setCreatedAt(now);
+            }
+            if (entry.getUpdatedAt() == null) {
+                entry.setUpdatedAt(entry.getCreatedAt());
+            }
         }
-        entry.setUpdatedAt(now);
 
-        return diaryEntryDAO.save(entry);
+        List<DiaryEntry> stored = new ArrayList<>(entries.size());
+        for (DiaryEntry entry : entries) {
+            stored.add(sealed(entry));
+        }
+
+        long started = System.nanoTime();
+        List<DiaryEntry> saved = List.of();
+        try {
+            saved = diaryEntryDAO.saveAll(stored);
+        } catch (PartialSaveException ex) {
+            saved = ex.getSaved();
+            throw ex;
+        } finally {
+            // Committed rows are searchable and announced even when a later chunk failed
+            for (DiaryEntry entry : saved) {
+                searchIndex.index(entry);
+                userIds.add(entry.getUserId());
+            }
+        }
+        return new ImportResult(saved.size(), System.nanoTime() - started);
+    }
+
+    private void announceReload(Set<Long> userIds) {
+        for (Long userId : userIds) {
+            timelineCache.invalidate(userId);
+            publish(EntryChange.reloaded(userId));
+        }
     }
 
     public void updateEntry(DiaryEntry entry) throws Exception {
-        entry.setUpdatedAt(LocalDateTime.now());
-        diaryEntryDAO.update(entry);
+        UPDATE_ENTRY.run(() -> {
+            entry.setUpdatedAt(LocalDateTime.now());
+            DiaryEntry stored = sealed(entry);
+            diaryEntryDAO.update(stored);
+            entryCache.invalidate(entry.getId());
+            timelineCache.invalidate(entry.getUserId());
+            searchIndex.index(stored);
+            publish(EntryChange.updated(DiaryEntrySummary.of(entry)));
+        });
+    }
+
+    public void deleteEntry(Long userId, Long entryId) throws Exception {
+        DELETE_ENTRY.run(() -> {
+            if (!diaryEntryDAO.deleteOwned(userId, entryId)) {
+                throw new IllegalArgumentException("Entry " + entryId + " does not exist");
+            }
+            entryCache.invalidate(entryId);
+            timelineCache.invalidate(userId);
+            searchIndex.remove(userId, entryId);
+            publish(EntryChange.deleted(userId, entryId));
+        });
     }
 
-    public void deleteEntry(Long entryId) throws Exception {
-        diaryEntryDAO.delete(entryId);
+    // The user is done with this service, e.g. on logout: their search index and cached
+    // timeline are dropped rather than held for the life of the process
+    public void forgetUser(Long userId) {
+        searchIndex.evict(userId);
+        timelineCache.invalidate(userId);
+    }
+
+    public void addChangeListener(EntryChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(EntryChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void publish(EntryChange change) {
+        for (EntryChangeListener listener : changeListeners) {
+            listener.onEntryChanged(change);
+        }
     }
 
     public List<DiaryEntry> getUserEntries(Long userId) throws SQLException {
-        return diaryEntryDAO.findByUserId(userId);
+        return GET_USER_ENTRIES.time(() -> diaryEntryDAO.findByUserId(userId));
     }
 
     public List<DiaryEntry> searchEntries(Long userId, String searchTerm) throws SQLException {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return getUserEntries(userId);
         }
-        return diaryEntryDAO.searchByContent(userId, searchTerm.trim());
+        return SEARCH_ENTRIES.time(() -> diaryEntryDAO.searchByContent(userId, searchTerm.trim()));
     }
 
     public List<DiaryEntry> getEntriesByMood(Long userId, EntryMood mood) throws SQLException {
-        return diaryEntryDAO.findByUserIdAndMood(userId, mood);
+        return GET_ENTRIES_BY_MOOD.time(() -> diaryEntryDAO.findByUserIdAndMood(userId, mood));
+    }
+
+    public List<DiaryEntrySummary> getUserEntrySummaries(Long userId) throws SQLException {
+        return GET_USER_ENTRY_SUMMARIES.time(() ->
+                timelineCache.get(userId, id -> List.copyOf(diaryEntryDAO.findSummariesByUserId(id))));
+    }
+
+    public List<DiaryEntrySummary> searchEntrySummaries(Long userId, String searchTerm) throws SQLException {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return getUserEntrySummaries(userId);
+        }
+        return SEARCH_ENTRY_SUMMARIES.time(() -> searchIndex.search(userId, searchTerm, SEARCH_RESULT_LIMIT));
+    }
+
+    // For search-as-you-type: when searchTerm refines previousTerm and previousResults was not
+    // cut off at SEARCH_RESULT_LIMIT, only those results are rescored
+    public List<DiaryEntrySummary> refineEntrySummaries(Long userId, String searchTerm, String previousTerm,
+                                                        List<DiaryEntrySummary> previousResults) throws SQLException {
+        if (previousResults.size() >= SEARCH_RESULT_LIMIT || !SearchIndex.refines(searchTerm, previousTerm)) {
+            return searchEntrySummaries(userId, searchTerm);
+        }
+        return REFINE_ENTRY_SUMMARIES.time(() -> {
+            List<Long> entryIds = new ArrayList<>(previousResults.size());
+            for (DiaryEntrySummary summary : previousResults) {
+                entryIds.add(summary.getId());
+            }
+            return searchIndex.searchWithin(userId, searchTerm, entryIds, SEARCH_RESULT_LIMIT);
+        });
     }
 
+    public List<DiaryEntrySummary> getEntrySummariesByMood(Long userId, EntryMood mood) throws SQLException {
+        return GET_ENTRY_SUMMARIES_BY_MOOD.time(() -> {
+            // A cached timeline already holds every summary, so filtering it beats another query
+            List<DiaryEntrySummary> timeline = timelineCache.getIfPresent(userId);
+            if (timeline != null) {
+                return timeline.stream()
+                        .filter(summary -> summary.getMood() == mood)
+                        .collect(Collectors.toList());
+            }
+            return diaryEntryDAO.findSummariesByUserIdAndMood(userId, mood);
+        });
+    }
+
+    public Page<DiaryEntrySummary> getEntrySummariesPage(Long userId, String cursor, int pageSize) throws SQLException {
+        return GET_ENTRY_SUMMARIES_PAGE.time(() -> diaryEntryDAO.findSummaryPageByUserId(userId, cursor, pageSize),
+                page -> page.getItems().size());
+    }
+
+    // As stored: content may still be encrypted. Use openEntry to read it. Each caller gets
+    // its own copy, so editing it cannot change what later readers are served from the cache.
     public Optional<DiaryEntry> getEntryById(Long entryId) throws Exception {
-        return diaryEntryDAO.findById(entryId);
+        return GET_ENTRY_BY_ID.time(() ->
+                Optional.ofNullable(entryCache.get(entryId, id -> diaryEntryDAO.findById(id).orElse(null)))
+                        .map(cached -> withContent(cached, cached.getContent(), cached.isEncrypted())));
+    }
+
+    // The entry with readable content. Decryption happens here and in exports only; lists,
+    // search and analytics never read content, so they never pay for it.
+    public Optional<DiaryEntry> openEntry(Long entryId) throws Exception {
+        return OPEN_ENTRY.time(() -> getEntryById(entryId).map(this::decrypted));
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("entries", entryCache.stats());
+        stats.put("timelines", timelineCache.stats());
+        return stats;
     }
 
     public List<DiaryEntry> getRecentEntries(Long userId, int limit) throws SQLException {
-        // You'll need to add this method to the DAO
-        return diaryEntryDAO.findByUserId(userId).stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        if (limit <= 0) {
+            return List.of();
+        }
+        return GET_RECENT_ENTRIES.time(() -> diaryEntryDAO.findPageByUserId(userId, null, limit).getItems());
+    }
+
+    // Pass null for the first page, then the previous page's next cursor
+    public Page<DiaryEntry> getEntriesPage(Long userId, String cursor, int pageSize) throws SQLException {
+        return GET_ENTRIES_PAGE.time(() -> diaryEntryDAO.findPageByUserId(userId, cursor, pageSize),
+                page -> page.getItems().size());
+    }
+
+    // Full-account backup as JSON lines; streams from the database rather than the caches.
+    // Timed by hand because time() can only carry one checked exception type.
+    public ExportResult exportEntries(Long userId, Path target, ExportProgressListener progress) throws SQLException, IOException {
+        long started = System.nanoTime();
+        try {
+            ExportResult result = new JsonlExporter(diaryEntryDAO, this::decrypted).export(userId, target, progress);
+            EXPORT_ENTRIES.record(started, result.getEntryCount(), false);
+            return result;
+        } catch (SQLException | IOException | RuntimeException ex) {
+            EXPORT_ENTRIES.record(started, 0, true);
+            throw ex;
+        }
+    }
+
+    // One text file per entry; files already newer than their entry are not rewritten
+    public DirectoryExportResult exportEntriesToDirectory(Long userId, Path directory, ExportProgressListener progress) throws SQLException, IOException {
+        long started = System.nanoTime();
+        try {
+            DirectoryExportResult result = new DirectoryExporter(diaryEntryDAO, this::decrypted).export(userId, directory, progress);
+            EXPORT_ENTRIES_TO_DIRECTORY.record(started, result.getWrittenCount(), false);
+            return result;
+        } catch (SQLException | IOException | RuntimeException ex) {
+            EXPORT_ENTRIES_TO_DIRECTORY.record(started, 0, true);
+            throw ex;
+        }
+    }
+
+    // Restores a memories/ directory chunk by chunk; listeners hear about it once, when it ends
+    public MemoryImportResult importMemoryFiles(Long userId, Path directory, ExportProgressListener progress,
+                                                BooleanSupplier cancelled) throws Exception {
+        return IMPORT_MEMORY_FILES.time(() -> {
+            Set<Long> userIds = new HashSet<>();
+            try {
+                return new MemoryFileImporter(diaryEntryDAO)
+                        .importDirectory(userId, directory, batch -> insertAll(batch, userIds), progress, cancelled);
+            } finally {
+                announceReload(userIds);
+            }
+        }, MemoryImportResult::getImportedCount);
+    }
+
+    // The copy that goes to the database: content encrypted if the user has turned that on
+    // and is logged in, otherwise the entry itself. The caller's entry keeps its plain text.
+    private DiaryEntry sealed(DiaryEntry entry) throws GeneralSecurityException {
+        SecretKey key = entryKeys.encryptionKeyFor(entry.getUserId());
+        if (key == null || entry.isEncrypted()) {
+            return entry;
+        }
+        return withContent(entry, EntryCipher.encrypt(key, entry.getUserId(), entry.getContent()), true);
+    }
+
+    private DiaryEntry decrypted(DiaryEntry entry) {
+        if (!entry.isEncrypted()) {
+            return entry;
+        }
+        SecretKey key = entryKeys.get(entry.getUserId());
+        if (key == null) {
+            throw new IllegalStateException("Entry " + entry.getId() + " is encrypted; log in again to read it");
+        }
+        try {
+            return withContent(entry, EntryCipher.decrypt(key, entry.getUserId(), entry.getContent()), false);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Entry " + entry.getId() + " could not be decrypted", ex);
+        }
+    }
+
+    private static DiaryEntry withContent(DiaryEntry entry, String content, boolean encrypted) {
+        DiaryEntry copy = new DiaryEntry(entry.getTitle(), content, entry.getUserId(), entry.getMood());
+        copy.setId(entry.getId());
+        copy.setCreatedAt(entry.getCreatedAt());
+        copy.setUpdatedAt(entry.getUpdatedAt());
+        copy.setEncrypted(encrypted);
+        return copy;
+    }
+
+    private static MethodMetrics timed(String method) {
+        return Metrics.register("service", "DiaryService." + method);
     }
 
     // Helper method to validate entry
@@ -71,6 +381,9 @@ public class DiaryService {
         if (entry.getUserId() == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
+        if (entry.getTitle() == null) {
+            throw new IllegalArgumentException("Entry title cannot be null");
+        }
         if (entry.getContent() == null || entry.getContent().trim().isEmpty()) {
             throw new IllegalArgumentException("Entry content cannot be empty");
         }
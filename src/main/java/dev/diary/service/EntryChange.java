@@ -0,0 +1,56 @@
+package dev.diary.service;
+
+import dev.diary.model.DiaryEntrySummary;
+
+public class EntryChange {
+    public enum Type {
+        CREATED, UPDATED, DELETED,
+        // Too many rows changed to describe one by one (e.g. a bulk import); re-read the list
+        RELOADED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final Long entryId;
+    private final DiaryEntrySummary summary;
+
+    private EntryChange(Type type, Long userId, Long entryId, DiaryEntrySummary summary) {
+        this.type = type;
+        this.userId = userId;
+        this.entryId = entryId;
+        this.summary = summary;
+    }
+
+    public static EntryChange created(DiaryEntrySummary summary) {
+        return new EntryChange(Type.CREATED, summary.getUserId(), summary.getId(), summary);
+    }
+
+    public static EntryChange updated(DiaryEntrySummary summary) {
+        return new EntryChange(Type.UPDATED, summary.getUserId(), summary.getId(), summary);
+    }
+
+    public static EntryChange deleted(Long userId, Long entryId) {
+        return new EntryChange(Type.DELETED, userId, entryId, null);
+    }
+
+    public static EntryChange reloaded(Long userId) {
+        return new EntryChange(Type.RELOADED, userId, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    // The entry as it is now; null for deletions and reloads
+    public DiaryEntrySummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,7 @@
+package dev.diary.service;
+
+// Called on the thread that made the change, after it has been committed
+@FunctionalInterface
+public interface EntryChangeListener {
+    void onEntryChanged(EntryChange change);
+}
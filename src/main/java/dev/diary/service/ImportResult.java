@@ -0,0 +1,31 @@
+package dev.diary.service;
+
+import java.util.concurrent.TimeUnit;
+
+public class ImportResult {
+    private final int importedCount;
+    private final long elapsedNanos;
+
+    public ImportResult(int importedCount, long elapsedNanos) {
+        this.importedCount = importedCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : importedCount / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d entries in %d ms (%.0f rows/sec)",
+                importedCount, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,212 @@
+package dev.diary.service;
+
+import dev.diary.cache.TtlCache;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+import dev.diary.model.MoodBucket;
+import dev.diary.model.MoodCalendar;
+import dev.diary.model.MoodStreaks;
+import dev.diary.timeline.MoodTimelineIndex;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+// Mood dashboards. The database groups a user's entries into per-day counts once; every
+// rollup, streak and rolling window is then computed from those day buckets, so the cost
+// follows the number of days shown rather than the number of entries.
+public class MoodAnalyticsService {
+    private static final int MOODS = EntryMood.values().length;
+    private static final long CACHE_TTL_MILLIS = Long.getLong("diary.cache.ttlMillis", 300_000);
+    private static final int HISTORY_CACHE_SIZE = Integer.getInteger("diary.cache.timelines", 16);
+
+    private final DiaryEntryDAO diaryEntryDAO;
+    // userId -> day -> counts indexed by mood ordinal
+    private final TtlCache<Long, TreeMap<LocalDate, int[]>> historyCache = new TtlCache<>(HISTORY_CACHE_SIZE, CACHE_TTL_MILLIS);
+    // Per-entry (day, mood, id) arrays; unlike the day counts these can apply every change exactly
+    private final MoodTimelineIndex timelines;
+
+    public MoodAnalyticsService(DiaryService diaryService) {
+        this.diaryEntryDAO = new DiaryEntryDAO();
+        this.timelines = new MoodTimelineIndex(diaryEntryDAO);
+        diaryService.addChangeListener(this::onEntryChanged);
+    }
+
+    // Heatmap for [from, to]: one byte per day, straight from the user's timeline
+    public MoodCalendar getMoodCalendar(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        return new MoodCalendar(from, timelines.read(userId, timeline -> timeline.dominantMoods(from, to)));
+    }
+
+    // Ids of the entries in [from, to] with the mood (any mood for null), oldest first
+    public long[] getEntryIds(Long userId, LocalDate from, LocalDate to, EntryMood mood) throws SQLException {
+        return timelines.read(userId, timeline -> timeline.ids(from, to, mood));
+    }
+
+    // Days in [from, to] that have entries, oldest first
+    public List<MoodBucket> getDailyCounts(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        return rollUp(userId, from, to, UnaryOperator.identity());
+    }
+
+    // Weeks start on Monday; a partially covered week only counts the days inside the range
+    public List<MoodBucket> getWeeklyCounts(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        return rollUp(userId, from, to, day -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+    }
+
+    public List<MoodBucket> getMonthlyCounts(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        return rollUp(userId, from, to, day -> day.withDayOfMonth(1));
+    }
+
+    public MoodBucket getTotals(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        TreeMap<LocalDate, int[]> history = history(userId);
+        int[] totals = new int[MOODS];
+        synchronized (history) {
+            for (int[] counts : history.subMap(from, true, to, true).values()) {
+                add(totals, counts, 1);
+            }
+        }
+        return new MoodBucket(from, totals);
+    }
+
+    // One bucket per day in [from, to], each holding the counts of the windowDays days ending
+    // on it. The window slides by adding the day entering it and removing the one leaving it.
+    public List<MoodBucket> getRollingDistribution(Long userId, LocalDate from, LocalDate to, int windowDays) throws SQLException {
+        if (windowDays < 1) {
+            throw new IllegalArgumentException("Window must be at least one day");
+        }
+        TreeMap<LocalDate, int[]> history = history(userId);
+        List<MoodBucket> buckets = new ArrayList<>();
+        int[] window = new int[MOODS];
+
+        synchronized (history) {
+            for (int[] counts : history.subMap(from.minusDays(windowDays - 1), true, from, false).values()) {
+                add(window, counts, 1);
+            }
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                add(window, history.get(day), 1);
+                buckets.add(new MoodBucket(day, window));
+                add(window, history.get(day.minusDays(windowDays - 1)), -1);
+            }
+        }
+        return buckets;
+    }
+
+    public MoodStreaks getStreaks(Long userId, LocalDate today) throws SQLException {
+        TreeMap<LocalDate, int[]> history = history(userId);
+        int longest = 0;
+        LocalDate longestStart = null;
+        int run = 0;
+        LocalDate runStart = null;
+        LocalDate previous = null;
+        int[] moodRuns = new int[MOODS];
+        int[] moodLongest = new int[MOODS];
+
+        synchronized (history) {
+            for (Map.Entry<LocalDate, int[]> day : history.headMap(today, true).entrySet()) {
+                boolean consecutive = previous != null && previous.plusDays(1).equals(day.getKey());
+                if (consecutive) {
+                    run++;
+                } else {
+                    run = 1;
+                    runStart = day.getKey();
+                }
+                if (run > longest) {
+                    longest = run;
+                    longestStart = runStart;
+                }
+
+                int[] counts = day.getValue();
+                for (int m = 0; m < MOODS; m++) {
+                    moodRuns[m] = counts[m] == 0 ? 0 : (consecutive ? moodRuns[m] + 1 : 1);
+                    moodLongest[m] = Math.max(moodLongest[m], moodRuns[m]);
+                }
+                previous = day.getKey();
+            }
+        }
+
+        // A streak is still alive if the last entry was today or yesterday
+        int current = previous != null && !previous.isBefore(today.minusDays(1)) ? run : 0;
+        Map<EntryMood, Integer> byMood = new EnumMap<>(EntryMood.class);
+        for (EntryMood mood : EntryMood.values()) {
+            byMood.put(mood, moodLongest[mood.ordinal()]);
+        }
+        return new MoodStreaks(current, longest, longestStart, byMood);
+    }
+
+    private List<MoodBucket> rollUp(Long userId, LocalDate from, LocalDate to, UnaryOperator<LocalDate> bucketOf) throws SQLException {
+        TreeMap<LocalDate, int[]> history = history(userId);
+        NavigableMap<LocalDate, int[]> rolled = new TreeMap<>();
+        synchronized (history) {
+            for (Map.Entry<LocalDate, int[]> day : history.subMap(from, true, to, true).entrySet()) {
+                add(rolled.computeIfAbsent(bucketOf.apply(day.getKey()), start -> new int[MOODS]), day.getValue(), 1);
+            }
+        }
+
+        List<MoodBucket> buckets = new ArrayList<>(rolled.size());
+        for (Map.Entry<LocalDate, int[]> bucket : rolled.entrySet()) {
+            buckets.add(new MoodBucket(bucket.getKey(), bucket.getValue()));
+        }
+        return buckets;
+    }
+
+    private TreeMap<LocalDate, int[]> history(Long userId) throws SQLException {
+        return historyCache.get(userId, id -> {
+            TreeMap<LocalDate, int[]> days = new TreeMap<>();
+            for (MoodBucket bucket : diaryEntryDAO.findDailyMoodCounts(id)) {
+                int[] counts = new int[MOODS];
+                for (EntryMood mood : EntryMood.values()) {
+                    counts[mood.ordinal()] = bucket.getCount(mood);
+                }
+                days.put(bucket.getStart(), counts);
+            }
+            return days;
+        });
+    }
+
+    // Timelines apply every change exactly. In the day counts a new entry is counted in place,
+    // but updates and deletes do not say what the entry looked like before, so those drop the
+    // user's counts and the next query regroups them.
+    private void onEntryChanged(EntryChange change) {
+        switch (change.getType()) {
+            case CREATED:
+            case UPDATED:
+                timelines.index(change.getSummary());
+                break;
+            case DELETED:
+                timelines.remove(change.getUserId(), change.getEntryId());
+                break;
+            default:
+                timelines.evict(change.getUserId());
+        }
+
+        if (change.getType() == EntryChange.Type.CREATED) {
+            TreeMap<LocalDate, int[]> history = historyCache.getIfPresent(change.getUserId());
+            if (history != null) {
+                DiaryEntrySummary summary = change.getSummary();
+                synchronized (history) {
+                    history.computeIfAbsent(summary.getCreatedAt().toLocalDate(), day -> new int[MOODS])
+                            [summary.getMood().ordinal()]++;
+                }
+                return;
+            }
+        }
+        historyCache.invalidate(change.getUserId());
+    }
+
+    private static void add(int[] totals, int[] counts, int sign) {
+        if (counts == null) {
+            return;
+        }
+        for (int m = 0; m < MOODS; m++) {
+            totals[m] += sign * counts[m];
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.diary.service;
+
+import java.util.concurrent.TimeUnit;
+
+public class PasswordHashStats {
+    private final long completedCount;
+    private final long rejectedCount;
+    private final int queuedCount;
+    private final long totalHashNanos;
+    private final long totalWaitNanos;
+    private final long maxHashNanos;
+
+    public PasswordHashStats(long completedCount, long rejectedCount, int queuedCount,
+                             long totalHashNanos, long totalWaitNanos, long maxHashNanos) {
+        this.completedCount = completedCount;
+        this.rejectedCount = rejectedCount;
+        this.queuedCount = queuedCount;
+        this.totalHashNanos = totalHashNanos;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxHashNanos = maxHashNanos;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    // Requests refused because the queue was full
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
+    public double getAverageHashMillis() {
+        return completedCount == 0 ? 0 : totalHashNanos / 1_000_000.0 / completedCount;
+    }
+
+    // Time spent queued before a hashing thread picked the request up
+    public double getAverageWaitMillis() {
+        return completedCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / completedCount;
+    }
+
+    public long getMaxHashMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxHashNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hashed (avg %.1f ms, max %d ms, avg wait %.1f ms), %d queued, %d rejected",
+                completedCount, getAverageHashMillis(), getMaxHashMillis(), getAverageWaitMillis(),
+                queuedCount, rejectedCount);
+    }
+}
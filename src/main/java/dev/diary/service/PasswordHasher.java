@@ -0,0 +1,98 @@
+package dev.diary.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs PasswordUtils on a few dedicated threads. A KDF is deliberately slow, so a burst of
+// logins queues here (up to a limit, then is refused) instead of occupying every I/O thread.
+public final class PasswordHasher {
+    private static final int THREADS = Integer.getInteger("diary.password.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_CAPACITY = Integer.getInteger("diary.password.queue", 64);
+    private static final PasswordHasher SHARED = new PasswordHasher(THREADS, QUEUE_CAPACITY);
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHasher(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "diary-password-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static PasswordHasher shared() {
+        return SHARED;
+    }
+
+    public String hash(String password) throws Exception {
+        return compute(() -> PasswordUtils.hashPassword(password));
+    }
+
+    public boolean verify(String password, String hash) throws Exception {
+        return compute(() -> PasswordUtils.verifyPassword(password, hash));
+    }
+
+    public PasswordKey hashWithKey(String password) throws Exception {
+        return compute(() -> PasswordUtils.hashWithKey(password));
+    }
+
+    public PasswordKey verifyWithKey(String password, String hash) throws Exception {
+        return compute(() -> PasswordUtils.verifyWithKey(password, hash));
+    }
+
+    public PasswordHashStats stats() {
+        return new PasswordHashStats(completed.sum(), rejected.sum(), executor.getQueue().size(),
+                totalHashNanos.sum(), totalWaitNanos.sum(), maxHashNanos.get());
+    }
+
+    // Any other password-derived work (e.g. unwrapping a key) shares the same threads and limit.
+    // Blocks the caller, which is already off the UI thread, until the work is done.
+    public <T> T compute(Callable<T> work) throws Exception {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                totalWaitNanos.add(started - submitted);
+                try {
+                    return work.call();
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    totalHashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new IllegalStateException("Too many sign-in attempts in progress; please try again shortly");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw ex;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.diary.service;
+
+import javax.crypto.SecretKey;
+
+// A stored password hash together with the key derived from the same PBKDF2 run. The key never
+// leaves memory; it is what the user's content key is wrapped under.
+public final class PasswordKey {
+    private final String hash;
+    private final SecretKey wrappingKey;
+
+    PasswordKey(String hash, SecretKey wrappingKey) {
+        this.hash = hash;
+        this.wrappingKey = wrappingKey;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    // Null for hashes in an older format, which were not derived alongside a key
+    public SecretKey getWrappingKey() {
+        return wrappingKey;
+    }
+}
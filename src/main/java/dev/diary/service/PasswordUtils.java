@@ -1,21 +1,123 @@
 package dev.diary.service;
 
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
+// Stored hashes look like pbkdf2-hkdf-sha256$<iterations>$<salt>$<verifier>. One PBKDF2 run
+// gives a secret that is expanded (HKDF-Expand, RFC 5869) into two keys: the verifier, which is
+// stored, and the key that wraps the user's content key, which is not. A login therefore runs
+// the slow KDF once for both. The bare Base64 SHA-256 hashes stored before that still verify,
+// without a key, and needsRehash reports them.
 public class PasswordUtils {
     private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String KEYED_PREFIX = "pbkdf2-hkdf-sha256";
+    private static final byte[] VERIFIER_INFO = "diary password verifier".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRAPPING_KEY_INFO = "diary entry key wrapping".getBytes(StandardCharsets.US_ASCII);
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    // OWASP's recommendation for PBKDF2-HMAC-SHA256; raising it upgrades users as they log in
+    private static final int ITERATIONS = Integer.getInteger("diary.password.iterations", 310_000);
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is required by every JDK", ex);
+        }
+    });
 
-    public static String hashPassword(String password) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(password.getBytes());
-        return Base64.getEncoder().encodeToString(hash);
+    public static String hashPassword(String password) throws GeneralSecurityException {
+        return hashWithKey(password).getHash();
     }
 
-    public static boolean verifyPassword(String password, String hash) throws NoSuchAlgorithmException {
-        String newHash = hashPassword(password);
-        return newHash.equals(hash);
+    public static PasswordKey hashWithKey(String password) throws GeneralSecurityException {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] secret = pbkdf2(password, salt, ITERATIONS);
+        Base64.Encoder base64 = Base64.getEncoder();
+        String hash = KEYED_PREFIX + "$" + ITERATIONS + "$" + base64.encodeToString(salt)
+                + "$" + base64.encodeToString(expand(secret, VERIFIER_INFO));
+        return new PasswordKey(hash, new SecretKeySpec(expand(secret, WRAPPING_KEY_INFO), "AES"));
+    }
+
+    public static boolean verifyPassword(String password, String hash) throws GeneralSecurityException {
+        return verifyWithKey(password, hash) != null;
+    }
+
+    // Null if the password does not match; otherwise the hash, with its wrapping key unless it
+    // is an unsalted one
+    public static PasswordKey verifyWithKey(String password, String hash) throws GeneralSecurityException {
+        if (hash == null) {
+            return null;
+        }
+        if (!hash.startsWith(KEYED_PREFIX + "$")) {
+            return MessageDigest.isEqual(legacyHash(password), hash.getBytes(StandardCharsets.US_ASCII))
+                    ? new PasswordKey(hash, null) : null;
+        }
+
+        String[] parts = hash.split("\\$");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            byte[] secret = pbkdf2(password, salt, iterations);
+            if (!MessageDigest.isEqual(expand(secret, VERIFIER_INFO), expected)) {
+                return null;
+            }
+            return new PasswordKey(hash, new SecretKeySpec(expand(secret, WRAPPING_KEY_INFO), "AES"));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    // True for hashes in an older format and for ones made with fewer iterations than now
+    public static boolean needsRehash(String hash) {
+        if (hash == null || !hash.startsWith(KEYED_PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = hash.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // HKDF-Expand for a single 32-byte block: HMAC-SHA256(secret, info | 0x01). The PBKDF2 output
+    // is already uniformly random, so it is used as the pseudorandom key without an extract step.
+    private static byte[] expand(byte[] secret, byte[] info) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        mac.update(info);
+        mac.update((byte) 1);
+        return mac.doFinal();
+    }
+
+    // The original unsalted format, kept only so existing accounts can still log in once.
+    // Those hashes were made with the platform charset, so that is what has to be used here.
+    private static byte[] legacyHash(String password) {
+        byte[] hash = SHA_256.get().digest(password.getBytes(Charset.defaultCharset()));
+        return Base64.getEncoder().encode(hash);
     }
 }
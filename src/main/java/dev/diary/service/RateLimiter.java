@@ -0,0 +1,56 @@
+package dev.diary.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket per key, kept as a single timestamp per key (the generic cell rate algorithm):
+// the time at which the bucket will be full again. Taking a token is one compare-and-set,
+// so concurrent attempts never block each other.
+public class RateLimiter {
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final Map<String, AtomicLong> fullAt = new ConcurrentHashMap<>();
+
+    // burst tokens are available at once; afterwards one more arrives every period/perPeriod
+    public RateLimiter(int burst, int perPeriod, long period, TimeUnit unit) {
+        if (burst < 1 || perPeriod < 1 || period <= 0) {
+            throw new IllegalArgumentException("Burst, rate and period must be positive");
+        }
+        this.nanosPerToken = unit.toNanos(period) / perPeriod;
+        this.burstNanos = nanosPerToken * burst;
+    }
+
+    public boolean tryAcquire(String key) {
+        AtomicLong bucket = fullAt.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.get();
+            long base = current - now < 0 ? now : current;
+            long next = base + nanosPerToken;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                if (fullAt.size() > PRUNE_THRESHOLD) {
+                    prune(now);
+                }
+                return true;
+            }
+        }
+    }
+
+    // Full buckets carry no state worth keeping
+    private void prune(long now) {
+        Iterator<AtomicLong> buckets = fullAt.values().iterator();
+        while (buckets.hasNext()) {
+            if (buckets.next().get() - now < 0) {
+                buckets.remove();
+            }
+        }
+    }
+}
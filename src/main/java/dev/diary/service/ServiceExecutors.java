@@ -0,0 +1,53 @@
+package dev.diary.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Where blocking service calls run, so UI threads only ever wait on futures
+public final class ServiceExecutors {
+    private static final int PLATFORM_THREADS = Integer.getInteger("diary.executor.threads", 8);
+    private static final ExecutorService IO = createIoExecutor();
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private ServiceExecutors() {}
+
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    public static <T> CompletableFuture<T> supply(Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, IO);
+    }
+
+    // Virtual threads on JDK 21+, a small daemon pool otherwise; the connection pool bounds
+    // how many of these can be inside the database at once either way
+    private static ExecutorService createIoExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(PLATFORM_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "diary-io-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,32 +1,220 @@
 package dev.diary.service;
 
 
+import dev.diary.cache.CacheStats;
+import dev.diary.cache.TtlCache;
+import dev.diary.crypto.EntryKeys;
 import dev.diary.dao.UserDAO;
+import dev.diary.metrics.MethodMetrics;
+import dev.diary.metrics.Metrics;
+import dev.diary.model.Availability;
 import dev.diary.model.User;
 
+import javax.crypto.SecretKey;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class UserService {
+    // A desktop client has one source, itself; embedders with real clients pass their own
+    public static final String LOCAL_SOURCE = "local";
+
+    private static final long LOOKUP_TTL_MILLIS = Long.getLong("diary.auth.cacheTtlMillis", 30_000);
+    private static final int LOOKUP_CACHE_SIZE = Integer.getInteger("diary.auth.cacheEntries", 1_000);
+
+    private static final MethodMetrics REGISTER_USER = timed("registerUser");
+    private static final MethodMetrics CHECK_AVAILABILITY = timed("checkAvailability");
+    private static final MethodMetrics AUTHENTICATE_USER = timed("authenticateUser");
+    private static final MethodMetrics SET_ENTRY_ENCRYPTION = timed("setEntryEncryption");
+
     private final UserDAO userDAO;
+    private final PasswordHasher passwordHasher;
+    private final EntryKeys entryKeys = EntryKeys.shared();
+    // Guessing one account: a few tries at once, then one every 12 seconds
+    private final RateLimiter usernameLimiter = new RateLimiter(
+            Integer.getInteger("diary.login.userBurst", 5),
+            Integer.getInteger("diary.login.userPerMinute", 5), 1, TimeUnit.MINUTES);
+    // Spraying many accounts from one place
+    private final RateLimiter sourceLimiter = new RateLimiter(
+            Integer.getInteger("diary.login.sourceBurst", 20),
+            Integer.getInteger("diary.login.sourcePerMinute", 60), 1, TimeUnit.MINUTES);
+    // Probing which names and emails exist; kept apart so registering cannot lock out logins
+    private final RateLimiter availabilityLimiter = new RateLimiter(
+            Integer.getInteger("diary.register.burst", 20),
+            Integer.getInteger("diary.register.perMinute", 60), 1, TimeUnit.MINUTES);
+    // Short-lived, and caches misses too, so repeated attempts on one name cost one query.
+    // Keyed by the lower-cased username, like the limiter.
+    private final TtlCache<String, Optional<Account>> userCache = new TtlCache<>(LOOKUP_CACHE_SIZE, LOOKUP_TTL_MILLIS);
+    private final TtlCache<String, Availability> availabilityCache = new TtlCache<>(LOOKUP_CACHE_SIZE, LOOKUP_TTL_MILLIS);
+    // Verified against when the username is unknown, so a miss takes as long as a wrong password
+    private volatile String unknownUserHash;
 
     public UserService() {
         this.userDAO = new UserDAO();
+        this.passwordHasher = PasswordHasher.shared();
     }
 
     public void registerUser(String username, String password, String email) throws Exception {
-        String passwordHash = PasswordUtils.hashPassword(password);
-        User user = new User(username, passwordHash, email);
-        userDAO.save(user);
+        REGISTER_USER.run(() -> {
+            Availability availability = checkAvailability(username, email);
+            if (availability.isUsernameTaken()) {
+                throw new IllegalArgumentException("Username is already taken");
+            }
+            if (availability.isEmailTaken()) {
+                throw new IllegalArgumentException("An account with this email already exists");
+            }
+
+            String passwordHash = passwordHasher.hash(password);
+            User user = new User(username, passwordHash, email);
+            userDAO.save(user);
+            userCache.invalidate(username);
+            availabilityCache.invalidateAll();
+        });
     }
 
-    public Optional<User> authenticateUser(String username, String password) throws Exception {
-        Optional<User> userOpt = userDAO.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (PasswordUtils.verifyPassword(password, user.getPasswordHash())) {
-                return Optional.of(user);
+    // One query for both uniqueness checks, answered from a short-lived cache when repeated
+    public Availability checkAvailability(String username, String email) throws Exception {
+        return CHECK_AVAILABILITY.time(() -> {
+            if (!availabilityLimiter.tryAcquire(LOCAL_SOURCE)) {
+                throw tooManyAttempts();
             }
+            return availabilityCache.get(username + '\u0000' + email, key -> userDAO.findAvailability(username, email));
+        });
+    }
+
+    public Optional<User> authenticateUser(String username, String password) throws Exception {
+        return authenticateUser(username, password, LOCAL_SOURCE);
+    }
+
+    // Limits are checked before the database or the password hash is touched. Timed whole, so the
+    // password hash shows up here rather than under UserDAO.
+    public Optional<User> authenticateUser(String username, String password, String source) throws Exception {
+        return AUTHENTICATE_USER.time(() -> authenticate(username, password, source));
+    }
+
+    private Optional<User> authenticate(String username, String password, String source) throws Exception {
+        if (!sourceLimiter.tryAcquire(source) || !usernameLimiter.tryAcquire(limiterKey(username))) {
+            throw tooManyAttempts();
+        }
+
+        // Keyed like the lookup: usernames are case-sensitive, so "Alice" and "alice" are two accounts
+        Optional<Account> accountOpt = userCache.get(username, ignored -> userDAO.findByUsername(username).map(Account::new));
+        if (accountOpt.isEmpty()) {
+            passwordHasher.verify(password, unknownUserHash());
+            return Optional.empty();
+        }
+
+        Account account = accountOpt.get();
+        PasswordKey verified = passwordHasher.verifyWithKey(password, account.passwordHash);
+        if (verified == null) {
+            return Optional.empty();
+        }
+        // The caller gets its own copy; the cached one is never handed out
+        User user = withoutPasswordHash(account.user);
+        if (unlockEntryKey(user, password, verified)) {
+            userCache.invalidate(username);
+        }
+        return Optional.of(user);
+    }
+
+    public void logout(User user) {
+        entryKeys.forget(user.getId());
+    }
+
+    // Applies to entries saved from now on; existing entries keep the form they were stored in
+    public void setEntryEncryption(User user, boolean encrypt) throws Exception {
+        SET_ENTRY_ENCRYPTION.run(() -> {
+            userDAO.updateEncryptEntries(user.getId(), encrypt);
+            user.setEncryptEntries(encrypt);
+            entryKeys.setEncryptNewEntries(user.getId(), encrypt);
+            userCache.invalidate(user.getUsername());
+        });
+    }
+
+    public PasswordHashStats getPasswordHashStats() {
+        return passwordHasher.stats();
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("users", userCache.stats());
+        stats.put("availability", availabilityCache.stats());
+        return stats;
+    }
+
+    private static MethodMetrics timed(String method) {
+        return Metrics.register("service", "UserService." + method);
+    }
+
+    // Guessing at "Alice" and "alice" draws on one bucket
+    private static String limiterKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static User withoutPasswordHash(User user) {
+        User copy = new User(user.getUsername(), null, user.getEmail());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setRole(user.getRole());
+        copy.setEncryptionKey(user.getEncryptionKey());
+        copy.setEncryptEntries(user.isEncryptEntries());
+        return copy;
+    }
+
+    private static IllegalStateException tooManyAttempts() {
+        return new IllegalStateException("Too many attempts; please wait a minute and try again");
+    }
+
+    // The content key is unwrapped with the key that came out of verifying the password, so a
+    // login runs the KDF once. The password is only ever in hand here, so this is also where an
+    // older hash is upgraded and a content key created for accounts that predate encryption;
+    // true if the stored credentials were rewritten.
+    private boolean unlockEntryKey(User user, String password, PasswordKey verified) throws Exception {
+        String wrapped = user.getEncryptionKey();
+        boolean current = !PasswordUtils.needsRehash(verified.getHash());
+        if (current && wrapped != null) {
+            unlock(user, EntryKeys.unwrap(wrapped, verified.getWrappingKey(), user.getId()));
+            return false;
+        }
+
+        // An unsalted hash has no wrapping key, but an account that old has no content key either
+        SecretKey key = wrapped == null
+                ? EntryKeys.newContentKey()
+                : EntryKeys.unwrap(wrapped, verified.getWrappingKey(), user.getId());
+        PasswordKey next = current ? verified : passwordHasher.hashWithKey(password);
+        String rewrapped = EntryKeys.wrap(key, next.getWrappingKey(), user.getId());
+        userDAO.updateCredentials(user.getId(), next.getHash(), rewrapped);
+        user.setEncryptionKey(rewrapped);
+        unlock(user, key);
+        return true;
+    }
+
+    private void unlock(User user, SecretKey key) {
+        entryKeys.unlock(user.getId(), key);
+        entryKeys.setEncryptNewEntries(user.getId(), user.isEncryptEntries());
+    }
+
+    private String unknownUserHash() throws Exception {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordHasher.hash("");
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    // A users row as a login sees it: the hash is only needed to verify against, so it is kept
+    // beside the user rather than on it
+    private static final class Account {
+        private final User user;
+        private final String passwordHash;
+
+        private Account(User user) {
+            this.user = withoutPasswordHash(user);
+            this.passwordHash = user.getPasswordHash();
         }
-        return Optional.empty();
     }
 }
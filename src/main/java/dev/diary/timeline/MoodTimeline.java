@@ -0,0 +1,186 @@
+package dev.diary.timeline;
+
+import dev.diary.model.EntryMood;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// One user's entries reduced to (day, mood, id) in three parallel primitive arrays sorted by
+// day and then id: 13 bytes per entry instead of a DiaryEntry with its boxed id, two
+// LocalDateTimes and the content. Ranges are found by binary search on the day column.
+// Not thread-safe; MoodTimelineIndex guards each instance with a read/write lock.
+public final class MoodTimeline {
+    public static final byte NO_ENTRIES = -1;
+    private static final EntryMood[] MOODS = EntryMood.values();
+
+    private int[] days;
+    private byte[] moods;
+    private long[] ids;
+    private int size;
+
+    public MoodTimeline() {
+        this(64);
+    }
+
+    public MoodTimeline(int capacity) {
+        capacity = Math.max(capacity, 16);
+        days = new int[capacity];
+        moods = new byte[capacity];
+        ids = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Entries usually arrive in order (the build query sorts, new entries are dated today),
+    // so the common case is an append
+    public void add(long id, LocalDate day, EntryMood mood) {
+        int epochDay = (int) day.toEpochDay();
+        boolean sortsLast = size == 0 || days[size - 1] < epochDay
+                || (days[size - 1] == epochDay && ids[size - 1] < id);
+        int position = sortsLast ? size : upperBound(epochDay, id);
+
+        if (size == days.length) {
+            int capacity = size + (size >> 1);
+            days = Arrays.copyOf(days, capacity);
+            moods = Arrays.copyOf(moods, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        int tail = size - position;
+        if (tail > 0) {
+            System.arraycopy(days, position, days, position + 1, tail);
+            System.arraycopy(moods, position, moods, position + 1, tail);
+            System.arraycopy(ids, position, ids, position + 1, tail);
+        }
+        days[position] = epochDay;
+        moods[position] = (byte) mood.ordinal();
+        ids[position] = id;
+        size++;
+    }
+
+    // Ids are not indexed, so this scans the id column; a long[] scan is still only
+    // microseconds for tens of thousands of entries
+    public boolean remove(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                int tail = size - i - 1;
+                System.arraycopy(days, i + 1, days, i, tail);
+                System.arraycopy(moods, i + 1, moods, i, tail);
+                System.arraycopy(ids, i + 1, ids, i, tail);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Entries dated in [from, to]
+    public int count(LocalDate from, LocalDate to) {
+        return Math.max(0, lowerBound(epochDay(to) + 1) - lowerBound(epochDay(from)));
+    }
+
+    public int count(LocalDate from, LocalDate to, EntryMood mood) {
+        byte ordinal = (byte) mood.ordinal();
+        int count = 0;
+        for (int i = lowerBound(epochDay(from)), end = lowerBound(epochDay(to) + 1); i < end; i++) {
+            if (moods[i] == ordinal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Counts in [from, to] indexed by EntryMood.ordinal()
+    public int[] countByMood(LocalDate from, LocalDate to) {
+        int[] counts = new int[MOODS.length];
+        for (int i = lowerBound(epochDay(from)), end = lowerBound(epochDay(to) + 1); i < end; i++) {
+            counts[moods[i]]++;
+        }
+        return counts;
+    }
+
+    // Ids of entries in [from, to], oldest day first; pass null for every mood
+    public long[] ids(LocalDate from, LocalDate to, EntryMood mood) {
+        int start = lowerBound(epochDay(from));
+        int end = Math.max(start, lowerBound(epochDay(to) + 1));
+        if (mood == null) {
+            return Arrays.copyOfRange(ids, start, end);
+        }
+        long[] matches = new long[end - start];
+        int found = 0;
+        for (int i = start; i < end; i++) {
+            if (moods[i] == mood.ordinal()) {
+                matches[found++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    // Heatmap cells: for each day in [from, to], the mood ordinal written most that day
+    // (earlier-declared mood on a tie) or NO_ENTRIES
+    public byte[] dominantMoods(LocalDate from, LocalDate to) {
+        int first = epochDay(from);
+        int dayCount = epochDay(to) - first + 1;
+        byte[] cells = new byte[Math.max(0, dayCount)];
+        Arrays.fill(cells, NO_ENTRIES);
+
+        int[] counts = new int[MOODS.length];
+        int i = lowerBound(first);
+        int end = lowerBound(first + dayCount);
+        while (i < end) {
+            int day = days[i];
+            Arrays.fill(counts, 0);
+            while (i < end && days[i] == day) {
+                counts[moods[i++]]++;
+            }
+            int best = 0;
+            for (int m = 1; m < counts.length; m++) {
+                if (counts[m] > counts[best]) {
+                    best = m;
+                }
+            }
+            cells[day - first] = (byte) best;
+        }
+        return cells;
+    }
+
+    // Approximate heap held by the arrays, for comparing against object lists
+    public long retainedBytes() {
+        return (long) days.length * Integer.BYTES + moods.length + (long) ids.length * Long.BYTES;
+    }
+
+    private static int epochDay(LocalDate day) {
+        return (int) day.toEpochDay();
+    }
+
+    // First position whose day is >= epochDay
+    private int lowerBound(int epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position that sorts after (epochDay, id)
+    private int upperBound(int epochDay, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < epochDay || (days[mid] == epochDay && ids[mid] <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
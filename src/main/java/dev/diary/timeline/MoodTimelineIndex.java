@@ -0,0 +1,93 @@
+package dev.diary.timeline;
+
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntrySummary;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Per-user MoodTimelines, built from a three-column query the first time a user's timeline is
+// read and then kept current by the owner calling index/remove/evict as entries change
+public class MoodTimelineIndex {
+    private final DiaryEntryDAO diaryEntryDAO;
+    private final Map<Long, Holder> users = new ConcurrentHashMap<>();
+
+    public MoodTimelineIndex(DiaryEntryDAO diaryEntryDAO) {
+        this.diaryEntryDAO = diaryEntryDAO;
+    }
+
+    // Runs the query under the user's read lock; the timeline must not escape it
+    public <R> R read(Long userId, Function<MoodTimeline, R> query) throws SQLException {
+        Holder holder = holderFor(userId);
+        holder.lock.readLock().lock();
+        try {
+            return query.apply(holder.timeline);
+        } finally {
+            holder.lock.readLock().unlock();
+        }
+    }
+
+    // Adds the entry, or moves it if its day or mood changed; unbuilt users are left alone
+    // since their first read loads the entry anyway
+    public void index(DiaryEntrySummary summary) {
+        Holder holder = users.get(summary.getUserId());
+        if (holder == null) {
+            return;
+        }
+        holder.lock.writeLock().lock();
+        try {
+            holder.timeline.remove(summary.getId());
+            holder.timeline.add(summary.getId(), summary.getCreatedAt().toLocalDate(), summary.getMood());
+        } finally {
+            holder.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId, Long entryId) {
+        Holder holder = users.get(userId);
+        if (holder == null) {
+            return;
+        }
+        holder.lock.writeLock().lock();
+        try {
+            holder.timeline.remove(entryId);
+        } finally {
+            holder.lock.writeLock().unlock();
+        }
+    }
+
+    public void evict(Long userId) {
+        users.remove(userId);
+    }
+
+    private Holder holderFor(Long userId) throws SQLException {
+        Holder holder = users.computeIfAbsent(userId, id -> new Holder());
+        if (holder.built) {
+            return holder;
+        }
+
+        // Writers for this user wait on the lock while we build, then apply on top of it
+        holder.lock.writeLock().lock();
+        try {
+            if (!holder.built) {
+                MoodTimeline timeline = new MoodTimeline((int) Math.min(Integer.MAX_VALUE, diaryEntryDAO.countByUserId(userId)));
+                diaryEntryDAO.forEachMoodPointByUserId(userId,
+                        (id, mood, createdAt) -> timeline.add(id, createdAt.toLocalDate(), mood));
+                holder.timeline = timeline;
+                holder.built = true;
+            }
+        } finally {
+            holder.lock.writeLock().unlock();
+        }
+        return holder;
+    }
+
+    private static final class Holder {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private MoodTimeline timeline = new MoodTimeline();
+        private volatile boolean built;
+    }
+}
@@ -3,12 +3,14 @@ module dev.diary {
     requires javafx.fxml;
     requires java.sql;
     requires java.desktop;
+    requires java.management;
 
 
     opens dev.diary to javafx.fxml;
     exports dev.diary;
     exports dev.diary.dao;
     opens dev.diary.dao to javafx.fxml;
+    exports dev.diary.metrics;
     exports dev.diary.gui;
     opens dev.diary.gui to javafx.fxml;
 }
\ No newline at end of file
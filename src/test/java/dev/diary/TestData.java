@@ -0,0 +1,30 @@
+package dev.diary;
+
+import dev.diary.dao.UserDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.model.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Rows for tests that share the in-memory database surefire points diary.db.url at; every
+// test makes its own user, so tests never see each other's entries
+public final class TestData {
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    private TestData() {}
+
+    public static User newUser() throws Exception {
+        int n = USERS.incrementAndGet();
+        String username = "user" + n + "_" + System.nanoTime();
+        return new UserDAO().save(new User(username, "unused-hash", username + "@example.test"));
+    }
+
+    public static DiaryEntry entry(Long userId, String title, EntryMood mood, LocalDateTime createdAt) {
+        DiaryEntry entry = new DiaryEntry(title, "Content of " + title, userId, mood);
+        entry.setCreatedAt(createdAt);
+        entry.setUpdatedAt(createdAt);
+        return entry;
+    }
+}
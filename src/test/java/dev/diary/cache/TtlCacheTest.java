@@ -0,0 +1,72 @@
+package dev.diary.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TtlCacheTest {
+
+    @Test
+    void loadedValueIsCachedWhenNothingInterferes() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("key", key -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("key", key -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadThatRacedWithAnInvalidationIsNotCached() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // The loader read the old row, then the row changed and was invalidated before it returned
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> cache.get("key", key -> {
+            loading.countDown();
+            await(invalidated);
+            return "stale";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.invalidate("key");
+        invalidated.countDown();
+
+        assertEquals("stale", stale.get(5, TimeUnit.SECONDS));
+        assertNull(cache.getIfPresent("key"));
+        assertEquals("fresh", cache.get("key", key -> "fresh"));
+        assertEquals("fresh", cache.getIfPresent("key"));
+    }
+
+    @Test
+    void invalidatingAnyKeyOrEverythingDropsLoadsInFlight() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+
+        assertEquals("a", cache.get("a", key -> {
+            cache.invalidate("other");
+            return "a";
+        }));
+        assertEquals("b", cache.get("b", key -> {
+            cache.invalidateAll();
+            return "b";
+        }));
+        assertNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.diary.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntryKeysTest {
+    private static final long USER_ID = 42;
+
+    @Test
+    void wrappedKeyOnlyOpensWithItsKeyAndUser() throws Exception {
+        SecretKey contentKey = EntryKeys.newContentKey();
+        SecretKey wrappingKey = EntryKeys.newContentKey();
+
+        String wrapped = EntryKeys.wrap(contentKey, wrappingKey, USER_ID);
+        assertArrayEquals(contentKey.getEncoded(), EntryKeys.unwrap(wrapped, wrappingKey, USER_ID).getEncoded());
+
+        assertThrows(GeneralSecurityException.class, () -> EntryKeys.unwrap(wrapped, EntryKeys.newContentKey(), USER_ID));
+        assertThrows(GeneralSecurityException.class, () -> EntryKeys.unwrap(wrapped, wrappingKey, USER_ID + 1));
+        assertThrows(GeneralSecurityException.class, () -> EntryKeys.unwrap("v2$not base64!", wrappingKey, USER_ID));
+        assertThrows(GeneralSecurityException.class, () -> EntryKeys.unwrap("v9$AAAA", wrappingKey, USER_ID));
+    }
+}
@@ -0,0 +1,106 @@
+package dev.diary.dao;
+
+import dev.diary.TestData;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiaryEntryDAOPagingTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private Long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void pagesThroughRowsThatShareCreatedAt() throws Exception {
+        // Seven rows at the same instant, so every page boundary falls inside the tie
+        for (int i = 0; i < 7; i++) {
+            dao.save(TestData.entry(userId, "tied " + i, EntryMood.HAPPY, NOON));
+        }
+        dao.save(TestData.entry(userId, "older", EntryMood.SAD, NOON.minusDays(1)));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Page<DiaryEntry> page = dao.findPageByUserId(userId, cursor, 3);
+            page.getItems().forEach(entry -> seen.add(entry.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(8, seen.size());
+        assertEquals(8, seen.stream().distinct().count());
+        // Newest first, ties broken by id descending
+        List<Long> tied = seen.subList(0, 7);
+        List<Long> sortedTied = new ArrayList<>(tied);
+        sortedTied.sort(Comparator.reverseOrder());
+        assertEquals(sortedTied, tied);
+        assertEquals("older", dao.findById(seen.get(7)).orElseThrow().getTitle());
+    }
+
+    @Test
+    void lastPageThatExactlyFillsHasNoCursor() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            dao.save(TestData.entry(userId, "entry " + i, EntryMood.NEUTRAL, NOON.plusMinutes(i)));
+        }
+
+        Page<DiaryEntrySummary> first = dao.findSummaryPageByUserId(userId, null, 2);
+        assertTrue(first.hasNext());
+        assertEquals(List.of("entry 3", "entry 2"), titles(first));
+
+        Page<DiaryEntrySummary> last = dao.findSummaryPageByUserId(userId, first.getNextCursor(), 2);
+        assertEquals(List.of("entry 1", "entry 0"), titles(last));
+        assertFalse(last.hasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void emptyDiaryIsOneEmptyPage() throws Exception {
+        Page<DiaryEntry> page = dao.findPageByUserId(userId, null, 10);
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> dao.findPageByUserId(userId, "not base64!", 5));
+        String noSeparator = new PageCursor(NOON, 1).encode().substring(0, 8);
+        assertThrows(IllegalArgumentException.class, () -> dao.findPageByUserId(userId, noSeparator, 5));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> dao.findPageByUserId(userId, null, 0));
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        PageCursor cursor = new PageCursor(NOON.withNano(123_000_000), 42);
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(42, decoded.getId());
+    }
+
+    private static List<String> titles(Page<DiaryEntrySummary> page) {
+        List<String> titles = new ArrayList<>();
+        page.getItems().forEach(summary -> titles.add(summary.getTitle()));
+        return titles;
+    }
+}
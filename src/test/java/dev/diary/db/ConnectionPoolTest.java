@@ -0,0 +1,255 @@
+package dev.diary.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final SqlStatement TEN_ROWS = SqlCatalog.define("ConnectionPoolTest.tenRows",
+            "SELECT X FROM SYSTEM_RANGE(1, 10)");
+
+    private final List<ConnectionPool> pools = new ArrayList<>();
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(ConnectionPool::close);
+    }
+
+    @Test
+    void timesOutWhenEveryConnectionIsBorrowed() throws SQLException {
+        PoolConfig config = config(0, 1);
+        config.setAcquireTimeoutMillis(100);
+        ConnectionPool pool = pool(config);
+
+        try (Connection held = pool.getConnection()) {
+            long started = System.nanoTime();
+            assertThrows(SQLTimeoutException.class, pool::getConnection);
+            assertTrue(System.nanoTime() - started >= 90_000_000L);
+        }
+        // The permit came back with the held connection
+        try (Connection again = pool.getConnection()) {
+            assertFalse(again.isClosed());
+        }
+    }
+
+    @Test
+    void reusesReturnedConnections() throws SQLException {
+        ConnectionPool pool = pool(config(0, 2));
+
+        String first;
+        try (Connection conn = pool.getConnection()) {
+            first = sessionId(conn);
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(first, sessionId(conn));
+        }
+        assertEquals(1, pool.getOpenCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void replacesAnIdleConnectionThatFailsValidation() throws SQLException {
+        ConnectionPool pool = pool(config(0, 2));
+
+        String dead;
+        try (Connection conn = pool.getConnection()) {
+            dead = sessionId(conn);
+        }
+        // Kill the idle session from outside the pool, as a server restart or timeout would
+        try (Connection admin = pool.getConnection();
+             Statement statement = admin.createStatement()) {
+            statement.execute("CALL ABORT_SESSION(" + dead + ")");
+        }
+
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(dead.equals(sessionId(conn)));
+        }
+    }
+
+    @Test
+    void evictsIdleConnectionsDownToMinSize() throws Exception {
+        PoolConfig config = config(1, 3);
+        config.setIdleTimeoutMillis(50);
+        config.setEvictionIntervalMillis(25);
+        ConnectionPool pool = pool(config);
+
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.getOpenCount());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getOpenCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+        }
+        assertEquals(1, pool.getOpenCount());
+    }
+
+    @Test
+    void rollsBackWhatABorrowerLeftUncommitted() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE notes (id INT)");
+        }
+
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            statement.execute("INSERT INTO notes VALUES (1)");
+        }
+
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM notes")) {
+            assertTrue(conn.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void doesNotHandOutThePhysicalConnection() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection()) {
+            assertSame(conn, conn.unwrap(Connection.class));
+            assertTrue(conn.isWrapperFor(Connection.class));
+            assertFalse(conn.isWrapperFor(org.h2.jdbc.JdbcConnection.class));
+            assertThrows(SQLException.class, () -> conn.unwrap(org.h2.jdbc.JdbcConnection.class));
+        }
+    }
+
+    @Test
+    void refusesAHandleAfterItWasReturned() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void cachedStatementsAnswerWithTheHandles() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection();
+             PreparedStatement statement = TEN_ROWS.prepare(conn);
+             ResultSet rs = statement.executeQuery()) {
+            assertSame(conn, statement.getConnection());
+            assertSame(statement, rs.getStatement());
+        }
+    }
+
+    @Test
+    void cachedStatementsDoNotUnwrapToTheDriver() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection();
+             PreparedStatement statement = TEN_ROWS.prepare(conn);
+             ResultSet rs = statement.executeQuery()) {
+            assertSame(statement, statement.unwrap(PreparedStatement.class));
+            assertFalse(statement.isWrapperFor(org.h2.jdbc.JdbcPreparedStatement.class));
+            assertThrows(SQLException.class, () -> statement.unwrap(org.h2.jdbc.JdbcPreparedStatement.class));
+            assertSame(rs, rs.unwrap(ResultSet.class));
+            assertThrows(SQLException.class, () -> rs.unwrap(org.h2.jdbc.JdbcResultSet.class));
+        }
+    }
+
+    @Test
+    void statementsOutsideTheCatalogAnswerWithTheHandles() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT 1");
+             PreparedStatement prepared = conn.prepareStatement("SELECT 2")) {
+            assertSame(conn, statement.getConnection());
+            assertSame(statement, rs.getStatement());
+            assertSame(conn, prepared.getConnection());
+            assertThrows(SQLException.class, () -> statement.unwrap(org.h2.jdbc.JdbcStatement.class));
+            assertThrows(SQLException.class, () -> rs.unwrap(org.h2.jdbc.JdbcResultSet.class));
+
+            DatabaseMetaData metaData = conn.getMetaData();
+            assertSame(conn, metaData.getConnection());
+            try (ResultSet tables = metaData.getTables(null, null, "NONE", null)) {
+                assertNull(tables.getStatement());
+            }
+        }
+    }
+
+    @Test
+    void settingsDoNotCarryOverToTheNextBorrower() throws SQLException {
+        ConnectionPool pool = pool(config(0, 1));
+        try (Connection conn = pool.getConnection();
+             PreparedStatement statement = TEN_ROWS.prepare(conn)) {
+            statement.setMaxRows(3);
+            statement.setQueryTimeout(7);
+            statement.setFetchSize(2);
+            statement.setMaxFieldSize(5);
+            statement.setPoolable(false);
+            statement.setEscapeProcessing(false);
+            statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+            // Nothing could undo these for the next borrower
+            assertThrows(SQLFeatureNotSupportedException.class, () -> statement.setCursorName("mine"));
+            assertThrows(SQLFeatureNotSupportedException.class, statement::closeOnCompletion);
+        }
+
+        long hits = TEN_ROWS.getCacheHits();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement statement = TEN_ROWS.prepare(conn);
+             ResultSet rs = statement.executeQuery()) {
+            assertEquals(hits + 1, TEN_ROWS.getCacheHits());
+            assertEquals(0, statement.getMaxRows());
+            assertEquals(0, statement.getQueryTimeout());
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+            }
+            assertEquals(10, rows);
+        }
+    }
+
+    private static PoolConfig config(int minSize, int maxSize) {
+        PoolConfig config = new PoolConfig();
+        config.setMinSize(minSize);
+        config.setMaxSize(maxSize);
+        return config;
+    }
+
+    private ConnectionPool pool(PoolConfig config) throws SQLException {
+        String url = "jdbc:h2:mem:pool-test-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", config);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static String sessionId(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT SESSION_ID()")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.diary.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    @Test
+    void widenContentRendersForEachDialect() {
+        String widen = migration(4).getStatements().get(0);
+        assertEquals("ALTER TABLE diary_entries MODIFY content MEDIUMTEXT NOT NULL", SqlDialect.MYSQL.render(widen));
+        assertEquals("ALTER TABLE diary_entries ALTER COLUMN content CLOB NOT NULL", SqlDialect.H2.render(widen));
+    }
+
+    @Test
+    void versionOneRendersForMySqlAsItShipped() {
+        List<String> rendered = migration(1).getStatements().stream().map(SqlDialect.MYSQL::render).toList();
+        rendered.forEach(sql -> assertFalse(sql.contains("{"), sql));
+        assertTrue(rendered.get(0).contains("id INT AUTO_INCREMENT PRIMARY KEY,"));
+        assertTrue(rendered.get(1).contains("id INT AUTO_INCREMENT PRIMARY KEY,"));
+        assertTrue(rendered.get(1).contains("content TEXT NOT NULL,"));
+    }
+
+    @Test
+    void upgradesAnH2DatabaseThroughTheWidening() throws SQLException {
+        try (Connection conn = openDatabase()) {
+            assertEquals(3, new SchemaMigrator(conn, SqlDialect.H2, Migrations.all().subList(0, 3)).migrate());
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO users (username, password_hash, email, role) VALUES ('u', 'h', 'e', 'USER')");
+                stmt.execute("INSERT INTO diary_entries (title, content, user_id, mood) "
+                        + "SELECT 'Before', 'kept', id, 'HAPPY' FROM users");
+            }
+
+            SchemaMigrator migrator = new SchemaMigrator(conn, SqlDialect.H2, Migrations.all());
+            assertEquals(4, migrator.migrate());
+            assertEquals(4, migrator.migrate());
+            assertEquals(4, migrator.currentVersion());
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT DATA_TYPE, IS_NULLABLE FROM INFORMATION_SCHEMA.COLUMNS "
+                         + "WHERE TABLE_NAME = 'DIARY_ENTRIES' AND COLUMN_NAME = 'CONTENT'")) {
+                assertTrue(rs.next());
+                assertEquals("CHARACTER LARGE OBJECT", rs.getString(1));
+                assertEquals("NO", rs.getString(2));
+            }
+
+            String large = "x".repeat(200_000);
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO diary_entries (title, content, user_id, mood) "
+                    + "SELECT 'After', ?, id, 'SAD' FROM users")) {
+                pstmt.setString(1, large);
+                pstmt.executeUpdate();
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT title, content FROM diary_entries ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals("kept", rs.getString("content"));
+                assertTrue(rs.next());
+                assertEquals(large, rs.getString("content"));
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    private static Migration migration(int version) {
+        return Migrations.all().stream().filter(m -> m.getVersion() == version).findFirst().orElseThrow();
+    }
+
+    private static Connection openDatabase() throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:mem:migrator-test-" + DATABASES.incrementAndGet(), "sa", "");
+    }
+}
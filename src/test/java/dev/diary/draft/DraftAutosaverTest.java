@@ -0,0 +1,152 @@
+package dev.diary.draft;
+
+import dev.diary.TestData;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.service.AsyncDiaryService;
+import dev.diary.service.DiaryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DraftAutosaverTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private final AsyncDiaryService diaryService = new AsyncDiaryService(new DiaryService());
+    private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    private Long userId;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        System.setProperty("diary.draft.dir", directory.toString());
+        userId = TestData.newUser().getId();
+    }
+
+    @AfterEach
+    void noErrors() {
+        System.clearProperty("diary.draft.dir");
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    void unfinishedDraftComesBackAfterAnUncleanClose() throws Exception {
+        // What a crashed session left: the draft, then half of the next append
+        journal(JournalRecord.open(1, "Title", EntryMood.ANXIOUS),
+                JournalRecord.edit(1, 0, 0, "Hello wor"),
+                JournalRecord.edit(1, 9, 0, "ld"));
+        Path file = DraftAutosaver.journalFile(userId);
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        DraftAutosaver autosaver = open();
+        assertEquals("Hello world", autosaver.getRecoveredText());
+        assertEquals(EntryMood.ANXIOUS, autosaver.getRecoveredMood());
+        close(autosaver);
+
+        // Closing keeps an unfinished draft for the next session
+        DraftAutosaver reopened = open();
+        assertEquals("Hello world", reopened.getRecoveredText());
+        assertEquals(EntryMood.ANXIOUS, reopened.getRecoveredMood());
+        close(reopened);
+    }
+
+    @Test
+    void finishedDraftIsWrittenToTheDatabaseOnOpen() throws Exception {
+        journal(JournalRecord.open(1, "Title", EntryMood.SAD),
+                JournalRecord.edit(1, 0, 0, "Saved before the crash"),
+                JournalRecord.finish(1, "Title", EntryMood.SAD));
+
+        DraftAutosaver autosaver = open();
+        assertNull(autosaver.getRecoveredText());
+        close(autosaver);
+
+        List<DiaryEntry> stored = dao.findByUserId(userId);
+        assertEquals(1, stored.size());
+        assertEquals("Saved before the crash", stored.get(0).getContent());
+        assertEquals(EntryMood.SAD, stored.get(0).getMood());
+        assertEquals(0, Files.size(DraftAutosaver.journalFile(userId)));
+    }
+
+    @Test
+    void olderDraftThatCanNeverBeStoredIsDropped() throws Exception {
+        journal(JournalRecord.open(1, "No mood", null),
+                JournalRecord.edit(1, 0, 0, "never got a mood"),
+                JournalRecord.open(2, "Current", EntryMood.HAPPY),
+                JournalRecord.edit(2, 0, 0, "still typing"));
+
+        DraftAutosaver autosaver = open();
+        assertEquals("still typing", autosaver.getRecoveredText());
+        close(autosaver);
+
+        try (DraftJournal journal = new DraftJournal(DraftAutosaver.journalFile(userId), DraftJournal.SyncPolicy.NEVER, 0)) {
+            for (JournalRecord record : journal.replay()) {
+                assertEquals(2, record.getDraftId());
+            }
+        }
+        assertTrue(dao.findByUserId(userId).isEmpty());
+    }
+
+    @Test
+    void discardDeletesTheAutosavedRow() throws Exception {
+        DiaryEntry autosaved = dao.save(TestData.entry(userId, "Title", EntryMood.HAPPY, NOON));
+        journal(JournalRecord.open(1, "Title", EntryMood.HAPPY),
+                JournalRecord.edit(1, 0, 0, "Content of Title"),
+                JournalRecord.stored(1, autosaved.getId(), NOON));
+
+        DraftAutosaver autosaver = open();
+        assertEquals("Content of Title", autosaver.getRecoveredText());
+        autosaver.discard();
+        close(autosaver);
+
+        assertFalse(dao.existsById(autosaved.getId()));
+        DraftAutosaver reopened = open();
+        assertNull(reopened.getRecoveredText());
+        close(reopened);
+        assertEquals(0, Files.size(DraftAutosaver.journalFile(userId)));
+    }
+
+    @Test
+    void discardAfterACrashToleratesARowThatIsAlreadyGone() throws Exception {
+        journal(JournalRecord.open(1, "Title", EntryMood.HAPPY),
+                JournalRecord.stored(1, Long.MAX_VALUE, NOON),
+                JournalRecord.discard(1));
+
+        DraftAutosaver autosaver = open();
+        assertNull(autosaver.getRecoveredText());
+        close(autosaver);
+
+        assertEquals(0, Files.size(DraftAutosaver.journalFile(userId)));
+    }
+
+    private DraftAutosaver open() {
+        return new DraftAutosaver(diaryService, userId, () -> "Untitled", errors::add);
+    }
+
+    private static void close(DraftAutosaver autosaver) throws Exception {
+        autosaver.close().get(30, TimeUnit.SECONDS);
+    }
+
+    private void journal(JournalRecord... records) throws Exception {
+        try (DraftJournal journal = new DraftJournal(DraftAutosaver.journalFile(userId), DraftJournal.SyncPolicy.ALWAYS, 0)) {
+            journal.append(List.of(records));
+        }
+    }
+}
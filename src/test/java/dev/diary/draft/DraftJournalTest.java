@@ -0,0 +1,159 @@
+package dev.diary.draft;
+
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DraftJournalTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysEveryRecordAsWritten() throws Exception {
+        Path file = directory.resolve("drafts.journal");
+        try (DraftJournal journal = open(file)) {
+            journal.append(List.of(
+                    JournalRecord.open(1, "Title", EntryMood.HAPPY),
+                    JournalRecord.edit(1, 0, 0, "Grüße 👋")));
+            journal.append(List.of(
+                    JournalRecord.edit(1, 3, 2, "").withText("c2VhbGVk", true),
+                    JournalRecord.mood(1, null),
+                    JournalRecord.stored(1, 42, NOON),
+                    JournalRecord.finish(1, "Final title", EntryMood.SAD),
+                    JournalRecord.done(1),
+                    JournalRecord.discard(2)));
+        }
+
+        List<JournalRecord> records;
+        try (DraftJournal journal = open(file)) {
+            records = journal.replay();
+        }
+        assertEquals(List.of(JournalRecord.Type.OPEN, JournalRecord.Type.EDIT, JournalRecord.Type.EDIT,
+                JournalRecord.Type.MOOD, JournalRecord.Type.STORED, JournalRecord.Type.FINISH,
+                JournalRecord.Type.DONE, JournalRecord.Type.DISCARD), types(records));
+        assertEquals("Title", records.get(0).getText());
+        assertEquals(EntryMood.HAPPY, records.get(0).getMood());
+        assertEquals("Grüße 👋", records.get(1).getText());
+        assertFalse(records.get(1).isSealed());
+        assertEquals(3, records.get(2).getPosition());
+        assertEquals(2, records.get(2).getRemoved());
+        assertTrue(records.get(2).isSealed());
+        assertNull(records.get(3).getMood());
+        assertEquals(42, records.get(4).getEntryId());
+        assertEquals(NOON, records.get(4).getCreatedAt());
+        assertEquals("Final title", records.get(5).getText());
+        assertEquals(2, records.get(7).getDraftId());
+    }
+
+    @Test
+    void tornTailIsCutOffAndTheNextAppendFollowsTheLastGoodRecord() throws Exception {
+        Path file = directory.resolve("drafts.journal");
+        long goodLength;
+        try (DraftJournal journal = open(file)) {
+            journal.append(List.of(JournalRecord.open(1, "Title", EntryMood.HAPPY)));
+            goodLength = journal.size();
+            journal.append(List.of(JournalRecord.edit(1, 0, 0, "lost in the crash")));
+        }
+        // The crash hit in the middle of the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (DraftJournal journal = open(file)) {
+            assertEquals(List.of(JournalRecord.Type.OPEN), types(journal.replay()));
+            assertEquals(goodLength, Files.size(file));
+            journal.append(List.of(JournalRecord.edit(1, 0, 0, "typed after restart")));
+        }
+
+        try (DraftJournal journal = open(file)) {
+            List<JournalRecord> records = journal.replay();
+            assertEquals(List.of(JournalRecord.Type.OPEN, JournalRecord.Type.EDIT), types(records));
+            assertEquals("typed after restart", records.get(1).getText());
+        }
+    }
+
+    @Test
+    void recordWithABadChecksumEndsTheReplay() throws Exception {
+        Path file = directory.resolve("drafts.journal");
+        try (DraftJournal journal = open(file)) {
+            journal.append(List.of(JournalRecord.open(1, "Title", EntryMood.HAPPY)));
+            journal.append(List.of(JournalRecord.edit(1, 0, 0, "first")));
+            journal.append(List.of(JournalRecord.edit(1, 5, 0, " second")));
+        }
+        // Same length, one flipped bit in the last payload
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 1)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+
+        try (DraftJournal journal = open(file)) {
+            List<JournalRecord> records = journal.replay();
+            assertEquals(List.of(JournalRecord.Type.OPEN, JournalRecord.Type.EDIT), types(records));
+            assertEquals("first", records.get(1).getText());
+        }
+    }
+
+    @Test
+    void rewriteKeepsOnlyTheGivenRecords() throws Exception {
+        Path file = directory.resolve("drafts.journal");
+        try (DraftJournal journal = open(file)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(List.of(JournalRecord.edit(1, i, 0, "x")));
+            }
+            journal.rewrite(List.of(JournalRecord.open(1, "Title", EntryMood.NEUTRAL),
+                    JournalRecord.edit(1, 0, 0, "compacted")));
+            journal.append(List.of(JournalRecord.done(1)));
+        }
+
+        try (DraftJournal journal = open(file)) {
+            assertEquals(List.of(JournalRecord.Type.OPEN, JournalRecord.Type.EDIT, JournalRecord.Type.DONE),
+                    types(journal.replay()));
+        }
+        assertFalse(Files.exists(directory.resolve("drafts.journal.tmp")));
+    }
+
+    @Test
+    void intervalPolicyLeavesTheTailForTheOwnerToSync() throws Exception {
+        Path file = directory.resolve("drafts.journal");
+        try (DraftJournal journal = new DraftJournal(file, DraftJournal.SyncPolicy.INTERVAL, 60_000)) {
+            assertFalse(journal.needsSync());
+            journal.append(List.of(JournalRecord.open(1, "Title", EntryMood.NEUTRAL)));
+            assertTrue(journal.needsSync());
+            journal.sync();
+            assertFalse(journal.needsSync());
+        }
+        try (DraftJournal journal = new DraftJournal(file, DraftJournal.SyncPolicy.NEVER, 0)) {
+            journal.append(List.of(JournalRecord.done(1)));
+            assertFalse(journal.needsSync());
+        }
+    }
+
+    private static DraftJournal open(Path file) throws IOException {
+        return new DraftJournal(file, DraftJournal.SyncPolicy.ALWAYS, 0);
+    }
+
+    private static List<JournalRecord.Type> types(List<JournalRecord> records) {
+        List<JournalRecord.Type> types = new ArrayList<>();
+        records.forEach(record -> types.add(record.getType()));
+        return types;
+    }
+}
@@ -0,0 +1,100 @@
+package dev.diary.export;
+
+import dev.diary.TestData;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectoryExporterTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private final DirectoryExporter exporter = new DirectoryExporter(dao, UnaryOperator.identity());
+    private Long userId;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void secondExportOnlyRewritesEdits() throws Exception {
+        dao.save(TestData.entry(userId, "First", EntryMood.HAPPY, NOON));
+        dao.save(TestData.entry(userId, "Second", EntryMood.SAD, NOON.plusDays(1)));
+
+        DirectoryExportResult first = exporter.export(userId, directory, ExportProgressListener.NONE);
+        assertEquals(2, first.getWrittenCount());
+
+        DirectoryExportResult second = exporter.export(userId, directory, ExportProgressListener.NONE);
+        assertEquals(0, second.getWrittenCount());
+        assertEquals(2, second.getSkippedCount());
+        assertEquals(0, second.getRemovedCount());
+    }
+
+    @Test
+    void removesFilesOfDeletedEntriesButNotOtherUsersFiles() throws Exception {
+        DiaryEntry kept = dao.save(TestData.entry(userId, "Kept", EntryMood.HAPPY, NOON));
+        DiaryEntry deleted = dao.save(TestData.entry(userId, "Deleted", EntryMood.SAD, NOON));
+        Long otherUser = TestData.newUser().getId();
+        DiaryEntry theirs = dao.save(TestData.entry(otherUser, "Theirs", EntryMood.NEUTRAL, NOON));
+        exporter.export(otherUser, directory, ExportProgressListener.NONE);
+        exporter.export(userId, directory, ExportProgressListener.NONE);
+
+        dao.deleteOwned(userId, deleted.getId());
+        DirectoryExportResult result = exporter.export(userId, directory, ExportProgressListener.NONE);
+
+        assertEquals(1, result.getRemovedCount());
+        assertFalse(Files.exists(directory.resolve(MemoryFileFormat.fileName(deleted))));
+        assertTrue(Files.exists(directory.resolve(MemoryFileFormat.fileName(kept))));
+        assertTrue(Files.exists(directory.resolve(MemoryFileFormat.fileName(theirs))));
+    }
+
+    @Test
+    void leavesFilesItDidNotWriteAlone() throws Exception {
+        DiaryEntry kept = dao.save(TestData.entry(userId, "Day", EntryMood.HAPPY, NOON));
+        DiaryEntry deleted = dao.save(TestData.entry(userId, "Gone", EntryMood.SAD, NOON));
+        // A single-entry export of an older build whose title happened to end in that id
+        Path older = directory.resolve("20240602_Day_" + deleted.getId() + ".txt");
+        Files.writeString(older, "kept by the user");
+        Path olderOfKept = directory.resolve("20240602_Day_" + kept.getId() + ".txt");
+        Files.writeString(olderOfKept, "kept by the user");
+        exporter.export(userId, directory, ExportProgressListener.NONE);
+
+        dao.deleteOwned(userId, deleted.getId());
+        DirectoryExportResult result = exporter.export(userId, directory, ExportProgressListener.NONE);
+
+        assertEquals(1, result.getRemovedCount());
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(olderOfKept));
+    }
+
+    @Test
+    void failureOutsideIoStillFailsTheExport() throws Exception {
+        dao.save(TestData.entry(userId, "Broken", EntryMood.HAPPY, NOON));
+        DirectoryExporter failing = new DirectoryExporter(dao, entry -> {
+            throw new IllegalArgumentException("cannot read " + entry.getTitle());
+        });
+
+        IOException failure = assertThrows(IOException.class,
+                () -> failing.export(userId, directory, ExportProgressListener.NONE));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.diary.export;
+
+import dev.diary.TestData;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonlExporterTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private Long userId;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void escapesQuotesBackslashesAndControlCharacters() throws Exception {
+        DiaryEntry entry = TestData.entry(userId, "Say \"hi\" \\ bye", EntryMood.HAPPY, NOON);
+        entry.setContent("line one\nline two\r\n\ttab \u0000 \u0001 \u001f \u007f é 👋 </script>");
+        dao.save(entry);
+
+        List<String> lines = export(new JsonlExporter(dao, stored -> stored));
+        assertEquals(List.of("{\"id\":" + entry.getId()
+                + ",\"title\":\"Say \\\"hi\\\" \\\\ bye\""
+                + ",\"content\":\"line one\\nline two\\r\\n\\ttab \\u0000 \\u0001 \\u001f \u007f é 👋 </script>\""
+                + ",\"mood\":\"HAPPY\",\"encrypted\":false"
+                + ",\"createdAt\":\"2024-06-02T12:00\",\"updatedAt\":\"2024-06-02T12:00\"}"), lines);
+    }
+
+    @Test
+    void missingFieldsAreWrittenAsNull() throws Exception {
+        DiaryEntry entry = dao.save(TestData.entry(userId, "Title", EntryMood.SAD, NOON));
+
+        List<String> lines = export(new JsonlExporter(dao, stored -> {
+            stored.setTitle(null);
+            stored.setContent("");
+            stored.setMood(null);
+            stored.setUpdatedAt(null);
+            return stored;
+        }));
+        assertEquals(List.of("{\"id\":" + entry.getId()
+                + ",\"title\":null,\"content\":\"\",\"mood\":null,\"encrypted\":false"
+                + ",\"createdAt\":\"2024-06-02T12:00\",\"updatedAt\":null}"), lines);
+    }
+
+    private List<String> export(JsonlExporter exporter) throws Exception {
+        Path target = directory.resolve("export.jsonl");
+        exporter.export(userId, target, ExportProgressListener.NONE);
+        return Files.readAllLines(target, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+package dev.diary.export;
+
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryFileFormatTest {
+    private static final LocalDateTime JUNE_SECOND = LocalDateTime.of(2024, 6, 2, 9, 5);
+
+    @Test
+    void headerDateIsEnglishWhateverTheLocale() {
+        assertTrue(MemoryFileFormat.render(entry("Walk", "Along the river")).contains("Date: Jun 02, 2024 09:05\n"));
+    }
+
+    @Test
+    void parseReadsWhatRenderWrote() {
+        DiaryEntry parsed = MemoryFileFormat.parse(MemoryFileFormat.render(entry("Walk", "Line one\nLine two")), 7L);
+
+        assertEquals("Walk", parsed.getTitle());
+        assertEquals("Line one\nLine two", parsed.getContent());
+        assertEquals(EntryMood.EXCITED, parsed.getMood());
+        assertEquals(JUNE_SECOND, parsed.getCreatedAt());
+        assertEquals(7L, parsed.getUserId());
+    }
+
+    @Test
+    void parseAcceptsWindowsLineEndings() {
+        String text = "Title: Walk\r\nDate: Jun 02, 2024 09:05\r\nMood: sad\r\n\r\nText\r\n";
+        DiaryEntry parsed = MemoryFileFormat.parse(text, 1L);
+
+        assertEquals("Text", parsed.getContent());
+        assertEquals(EntryMood.SAD, parsed.getMood());
+    }
+
+    @Test
+    void parseNamesWhatIsWrong() {
+        assertThrows(IllegalArgumentException.class, () -> MemoryFileFormat.parse("Title: x\n\ntext", 1L));
+        assertThrows(IllegalArgumentException.class,
+                () -> MemoryFileFormat.parse("Title: x\nDate: yesterday\nMood: SAD\n\ntext", 1L));
+        assertThrows(IllegalArgumentException.class,
+                () -> MemoryFileFormat.parse("Title: x\nDate: Jun 02, 2024 09:05\nMood: GRUMPY\n\ntext", 1L));
+        assertThrows(IllegalArgumentException.class,
+                () -> MemoryFileFormat.parse("Title: x\nDate: Jun 02, 2024 09:05\nMood: SAD\n\n   \n", 1L));
+    }
+
+    @Test
+    void fileNamesCarryTheEntryId() {
+        DiaryEntry entry = entry("A day: out!", "text");
+        entry.setId(42L);
+
+        assertEquals("20240602_A_day__out_-id42.txt", MemoryFileFormat.fileName(entry));
+        assertEquals(42L, MemoryFileFormat.entryIdOf(MemoryFileFormat.fileName(entry)));
+        assertNull(MemoryFileFormat.entryIdOf("notes.txt"));
+        // What single-entry exports of older builds are called
+        assertNull(MemoryFileFormat.entryIdOf("20240101_Day_2.txt"));
+    }
+
+    private static DiaryEntry entry(String title, String content) {
+        DiaryEntry entry = new DiaryEntry(title, content, 1L, EntryMood.EXCITED);
+        entry.setCreatedAt(JUNE_SECOND);
+        return entry;
+    }
+}
@@ -0,0 +1,133 @@
+package dev.diary.gui;
+
+import dev.diary.dao.Page;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+import dev.diary.service.EntryChange;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PagedEntryListTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    // Newest first, as the DAO returns them; a cursor is the index of the next row
+    private final List<DiaryEntrySummary> stored = new ArrayList<>();
+    private final Queue<Runnable> fxThread = new ArrayDeque<>();
+    private final List<String> changes = new ArrayList<>();
+    private int loads;
+    private PagedEntryList list;
+
+    @BeforeEach
+    void fillTimeline() {
+        for (int i = 10; i > 0; i--) {
+            stored.add(summary(i));
+        }
+        // Two rows per page and at most two pages in memory
+        list = new PagedEntryList(this::load, 2, 2, error -> { throw new AssertionError(error); }, fxThread::add);
+        runFxThread();
+        list.showing(0);
+        runFxThread();
+        list.showing(2);
+        runFxThread();
+        // The third page pushed out the first
+        assertEquals(6, list.size());
+        assertNull(list.get(0));
+        list.addListener((ListChangeListener<DiaryEntrySummary>) change -> {
+            while (change.next()) {
+                changes.add(change.getFrom() + ".." + change.getTo() + " replacing " + change.getRemovedSize());
+            }
+        });
+    }
+
+    @Test
+    void readingRowsDoesNotLoadOrKeepPages() {
+        int before = loads;
+        for (int i = 0; i < list.size(); i++) {
+            list.get(i);
+        }
+        runFxThread();
+
+        assertEquals(before, loads);
+        assertNull(list.get(1));
+    }
+
+    @Test
+    void showingARowOfADroppedPageFetchesItAgain() {
+        list.showing(1);
+        runFxThread();
+
+        assertEquals(10L, list.get(0).getId());
+        assertEquals(List.of("0..2 replacing 2"), changes);
+    }
+
+    @Test
+    void removeInADroppedPageReplacesThatPage() {
+        DiaryEntrySummary removed = stored.remove(1);
+        list.apply(EntryChange.deleted(removed.getUserId(), removed.getId()));
+
+        assertEquals(List.of("0..1 replacing 2"), changes);
+        assertEquals(5, list.size());
+        assertEquals(8L, list.get(1).getId());
+
+        list.showing(0);
+        runFxThread();
+        assertEquals(10L, list.get(0).getId());
+    }
+
+    @Test
+    void insertInADroppedPageReplacesThatPage() {
+        DiaryEntrySummary added = summary(11);
+        stored.add(0, added);
+        list.apply(EntryChange.created(added));
+
+        assertEquals(List.of("0..3 replacing 2"), changes);
+        assertEquals(7, list.size());
+        assertEquals(8L, list.get(3).getId());
+
+        list.showing(0);
+        runFxThread();
+        assertEquals(9L, list.get(2).getId());
+        assertEquals(11L, list.get(0).getId());
+    }
+
+    @Test
+    void insertInALoadedPageAddsOneRow() {
+        DiaryEntrySummary added = new DiaryEntrySummary(100L, 1L, "Between", EntryMood.HAPPY,
+                NOON.plusHours(7).plusMinutes(30), "");
+        list.apply(EntryChange.created(added));
+
+        assertEquals(List.of("3..4 replacing 0"), changes);
+        assertEquals(100L, list.get(3).getId());
+        assertEquals(7, list.size());
+    }
+
+    private CompletableFuture<Page<DiaryEntrySummary>> load(String cursor, int pageSize) {
+        loads++;
+        int from = cursor == null ? 0 : Integer.parseInt(cursor);
+        int to = Math.min(stored.size(), from + pageSize);
+        String next = to < stored.size() ? Integer.toString(to) : null;
+        return CompletableFuture.completedFuture(new Page<>(new ArrayList<>(stored.subList(from, to)), next));
+    }
+
+    private void runFxThread() {
+        Runnable task;
+        while ((task = fxThread.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static DiaryEntrySummary summary(long id) {
+        return new DiaryEntrySummary(id, 1L, "Entry " + id, EntryMood.NEUTRAL, NOON.plusHours(id), "");
+    }
+}
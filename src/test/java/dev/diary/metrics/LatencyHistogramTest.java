@@ -0,0 +1,77 @@
+package dev.diary.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void valuesBelowSixtyFourHaveABucketEach() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestValueIn((int) value));
+        }
+        // From 64 on, each power of two is split 32 ways
+        assertEquals(64, LatencyHistogram.indexOf(64));
+        assertEquals(64, LatencyHistogram.indexOf(65));
+        assertEquals(65, LatencyHistogram.highestValueIn(64));
+        assertEquals(65, LatencyHistogram.indexOf(66));
+        assertEquals(95, LatencyHistogram.indexOf(127));
+        assertEquals(96, LatencyHistogram.indexOf(128));
+        assertEquals(131, LatencyHistogram.highestValueIn(96));
+    }
+
+    @Test
+    void everyValueFallsInTheBucketThatEndsAtOrAboveIt() {
+        for (int exponent = 5; exponent < 40; exponent++) {
+            long power = 1L << exponent;
+            for (long value : new long[] {power - 1, power, power + 1, power + power / 32 - 1, power + power / 32, power * 3 / 2}) {
+                int index = LatencyHistogram.indexOf(value);
+                long highest = LatencyHistogram.highestValueIn(index);
+                assertTrue(highest >= value, value + " above its bucket");
+                assertTrue(index == 0 || LatencyHistogram.highestValueIn(index - 1) < value, value + " below its bucket");
+                assertTrue(highest - value <= value / 32, value + " in a bucket wider than 1/32");
+            }
+        }
+    }
+
+    @Test
+    void valuesPastTheRangeShareTheLastBucket() {
+        int last = LatencyHistogram.BUCKETS - 1;
+        assertEquals((1L << 40) - 1, LatencyHistogram.highestValueIn(last));
+        assertEquals(last, LatencyHistogram.indexOf((1L << 40) - 1));
+        assertEquals(last, LatencyHistogram.indexOf(1L << 40));
+        assertEquals(last, LatencyHistogram.indexOf(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1L << 50);
+        assertEquals(1L << 50, histogram.getMax());
+        assertEquals(1L << 50, histogram.percentile(50));
+    }
+
+    @Test
+    void percentilesNeverFallBelowTheTrueValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value * 1_000);
+        }
+        histogram.record(-5);
+        assertEquals(101, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(5_050_000 / 101.0, histogram.getMean(), 1e-9);
+
+        assertEquals(0, histogram.percentile(0));
+        for (int percentile : new int[] {1, 25, 50, 90, 99}) {
+            // The true value at this percentile of 0, 1000, 2000, ... 100000
+            long exact = (long) (Math.ceil(percentile / 100.0 * 101) - 1) * 1_000;
+            long reported = histogram.percentile(percentile);
+            assertTrue(reported >= exact && reported - exact <= exact / 32, percentile + "th: " + reported);
+        }
+        assertEquals(100_000, histogram.percentile(100));
+        assertEquals(100_000, histogram.percentile(150));
+    }
+}
@@ -0,0 +1,61 @@
+package dev.diary.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MethodMetricsTest {
+
+    @Test
+    void disabledPassesCallsThroughAndRecordsNothing() throws Exception {
+        MethodMetrics metrics = new MethodMetrics("test", "disabled", false);
+        List<String> result = List.of("a", "b");
+        SQLException failure = new SQLException("boom");
+        int[] runs = {0};
+
+        assertFalse(metrics.isEnabled());
+        assertSame(result, metrics.time(() -> result));
+        metrics.run(() -> runs[0]++);
+        assertSame(failure, assertThrows(SQLException.class, () -> metrics.time(() -> {
+            throw failure;
+        })));
+        metrics.record(System.nanoTime(), 3, true);
+
+        assertEquals(1, runs[0]);
+        assertEquals(0, metrics.getCalls());
+        assertEquals(0, metrics.getErrors());
+        assertEquals(0, metrics.getRows());
+        assertEquals(0, metrics.getP99Micros());
+    }
+
+    @Test
+    void enabledCountsCallsRowsAndErrors() throws Exception {
+        MethodMetrics metrics = new MethodMetrics("test", "enabled", true);
+        SQLException failure = new SQLException("boom");
+
+        assertTrue(metrics.isEnabled());
+        assertEquals(List.of(1, 2, 3), metrics.time(() -> List.of(1, 2, 3)));
+        assertEquals(Optional.of("x"), metrics.time(() -> Optional.of("x")));
+        assertEquals(Optional.empty(), metrics.time(Optional::empty));
+        assertNull(metrics.time(() -> null));
+        assertEquals("four", metrics.time(() -> "four", String::length));
+        metrics.run(() -> { });
+        assertSame(failure, assertThrows(SQLException.class, () -> metrics.run(() -> {
+            throw failure;
+        })));
+
+        assertEquals(7, metrics.getCalls());
+        assertEquals(1, metrics.getErrors());
+        assertEquals(3 + 1 + 4, metrics.getRows());
+        assertTrue(metrics.getMaxMicros() >= metrics.getP50Micros());
+    }
+}
@@ -0,0 +1,223 @@
+package dev.diary.search;
+
+import dev.diary.TestData;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private final SearchIndex index = new SearchIndex(dao);
+    private Long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void titleHitOutranksAMentionInTheText() throws Exception {
+        save("Morning", "went to the park", NOON.plusHours(1));
+        save("Park day", "sunny and warm", NOON);
+
+        assertEquals(List.of("Park day", "Morning"), titles(index.search(userId, "park", 10)));
+    }
+
+    @Test
+    void exactWordOutranksAPrefixExpansion() throws Exception {
+        save("One", "a long walking tour", NOON.plusHours(1));
+        save("Two", "a long walk home", NOON);
+
+        assertEquals(List.of("Two", "One"), titles(index.search(userId, "walk", 10)));
+        assertEquals(List.of("One"), titles(index.search(userId, "walki", 10)));
+        assertTrue(index.search(userId, "walks", 10).isEmpty());
+    }
+
+    @Test
+    void everyQueryWordMustMatch() throws Exception {
+        save("Park day", "sunny and warm", NOON);
+        save("Park night", "cold and dark", NOON);
+
+        assertEquals(List.of("Park day"), titles(index.search(userId, "PARK sun", 10)));
+        assertTrue(index.search(userId, "park snow", 10).isEmpty());
+        assertTrue(index.search(userId, "  ,. ", 10).isEmpty());
+    }
+
+    @Test
+    void equalScoresAreNewestFirstAndLimited() throws Exception {
+        for (int day = 1; day <= 5; day++) {
+            save("Day " + day, "the same words", NOON.plusDays(day));
+        }
+
+        assertEquals(List.of("Day 5", "Day 4", "Day 3"), titles(index.search(userId, "same", 3)));
+    }
+
+    @Test
+    void onlySearchesTheGivenUser() throws Exception {
+        save("Mine", "shared word", NOON);
+        Long otherUser = TestData.newUser().getId();
+        dao.save(TestData.entry(otherUser, "Theirs", EntryMood.HAPPY, NOON));
+
+        assertEquals(List.of("Mine"), titles(index.search(userId, "shared", 10)));
+    }
+
+    @Test
+    void indexedEntriesAreSearchableAndReplaceTheirOldText() throws Exception {
+        DiaryEntry entry = save("Plans", "beach trip", NOON);
+        assertEquals(1, index.search(userId, "beach", 10).size());
+
+        entry.setContent("mountain trip");
+        dao.update(entry);
+        index.index(entry);
+
+        assertTrue(index.search(userId, "beach", 10).isEmpty());
+        assertEquals(List.of("Plans"), titles(index.search(userId, "mountain", 10)));
+
+        DiaryEntry added = save("Later", "mountain again", NOON.plusDays(1));
+        index.index(added);
+        assertEquals(2, index.search(userId, "mountain", 10).size());
+    }
+
+    @Test
+    void removedEntriesAreNotFound() throws Exception {
+        DiaryEntry kept = save("Kept", "garden", NOON);
+        DiaryEntry deleted = save("Deleted", "garden", NOON.plusDays(1));
+        assertEquals(2, index.search(userId, "garden", 10).size());
+
+        dao.deleteOwned(userId, deleted.getId());
+        index.remove(userId, deleted.getId());
+
+        assertEquals(List.of(kept.getId()), ids(index.search(userId, "garden", 10)));
+    }
+
+    @Test
+    void removeBeforeTheFirstSearchIsHarmless() throws Exception {
+        DiaryEntry deleted = save("Deleted", "garden", NOON);
+        dao.deleteOwned(userId, deleted.getId());
+        index.remove(userId, deleted.getId());
+
+        assertTrue(index.search(userId, "garden", 10).isEmpty());
+    }
+
+    @Test
+    void evictedUsersAreRebuiltFromTheDatabase() throws Exception {
+        save("First", "river", NOON);
+        assertEquals(1, index.search(userId, "river", 10).size());
+
+        // Written behind the index's back, so only a rebuild can find it
+        dao.save(TestData.entry(userId, "river bank", EntryMood.HAPPY, NOON.plusDays(1)));
+        assertEquals(1, index.search(userId, "river", 10).size());
+
+        index.evict(userId);
+        assertEquals(2, index.search(userId, "river", 10).size());
+    }
+
+    @Test
+    void encryptedEntriesAreFoundByTitleOnly() throws Exception {
+        save("Plain", "secret word", NOON);
+        index.search(userId, "anything", 1);
+
+        DiaryEntry sealed = new DiaryEntry("Sealed title", "c2VjcmV0IHdvcmQ=", userId, EntryMood.SAD);
+        sealed.setId(Long.MAX_VALUE - 1);
+        sealed.setCreatedAt(NOON);
+        sealed.setEncrypted(true);
+        index.index(sealed);
+
+        assertEquals(List.of("Plain"), titles(index.search(userId, "secret", 10)));
+        assertEquals(List.of("Sealed title"), titles(index.search(userId, "sealed", 10)));
+    }
+
+    @Test
+    void searchWithinAgreesWithSearch() throws Exception {
+        List<Long> candidates = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            DiaryEntry entry = save("Entry " + i, i % 2 == 0 ? "walking by the lake" : "walk in town", NOON.plusMinutes(i));
+            if (i < 2) {
+                candidates.add(entry.getId());
+            }
+        }
+
+        List<DiaryEntrySummary> everything = index.search(userId, "walk", 100);
+        List<Long> expected = new ArrayList<>();
+        for (DiaryEntrySummary summary : everything) {
+            if (candidates.contains(summary.getId())) {
+                expected.add(summary.getId());
+            }
+        }
+        assertEquals(expected, ids(index.searchWithin(userId, "walk", candidates, 100)));
+        assertEquals(List.of(candidates.get(0)), ids(index.searchWithin(userId, "lake", candidates, 100)));
+    }
+
+    @Test
+    void staysCorrectAcrossCompaction() throws Exception {
+        index.search(userId, "anything", 1);
+        long firstId = Long.MAX_VALUE / 2;
+        for (int i = 0; i < 1_500; i++) {
+            index.index(unsaved(firstId + i, "Note " + i, i % 3 == 0 ? "apple pie" : "banana bread"));
+        }
+        // Enough deletions to trigger a compaction, then more writes on top of it
+        for (int i = 0; i < 1_200; i++) {
+            index.remove(userId, firstId + i);
+        }
+        index.index(unsaved(firstId + 5_000, "Late", "apple crumble"));
+
+        List<DiaryEntrySummary> apples = index.search(userId, "apple", 1_000);
+        long expected = 1;
+        for (int i = 1_200; i < 1_500; i++) {
+            if (i % 3 == 0) {
+                expected++;
+            }
+        }
+        assertEquals(expected, apples.size());
+        assertTrue(ids(apples).contains(firstId + 5_000));
+        assertFalse(ids(apples).contains(firstId));
+    }
+
+    @Test
+    void refinesWhenEveryEarlierWordIsStillPrefixed() {
+        assertTrue(SearchIndex.refines("walking", "walk"));
+        assertTrue(SearchIndex.refines("walk park", "walk"));
+        assertTrue(SearchIndex.refines("park walking", "walk park"));
+        assertFalse(SearchIndex.refines("wal", "walk"));
+        assertFalse(SearchIndex.refines("park", "walk park"));
+        assertFalse(SearchIndex.refines("walk", ""));
+    }
+
+    private DiaryEntry save(String title, String content, LocalDateTime createdAt) throws Exception {
+        DiaryEntry entry = TestData.entry(userId, title, EntryMood.HAPPY, createdAt);
+        entry.setContent(content);
+        return dao.save(entry);
+    }
+
+    private DiaryEntry unsaved(long id, String title, String content) {
+        DiaryEntry entry = TestData.entry(userId, title, EntryMood.NEUTRAL, NOON);
+        entry.setContent(content);
+        entry.setId(id);
+        return entry;
+    }
+
+    private static List<String> titles(List<DiaryEntrySummary> results) {
+        List<String> titles = new ArrayList<>();
+        results.forEach(summary -> titles.add(summary.getTitle()));
+        return titles;
+    }
+
+    private static List<Long> ids(List<DiaryEntrySummary> results) {
+        List<Long> ids = new ArrayList<>();
+        results.forEach(summary -> ids.add(summary.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.diary.service;
+
+import dev.diary.TestData;
+import dev.diary.dao.PartialSaveException;
+import dev.diary.export.ExportProgressListener;
+import dev.diary.export.MemoryFileFormat;
+import dev.diary.export.MemoryImportResult;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiaryServiceTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+
+    private final DiaryService service = new DiaryService();
+    private Long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void cachedEntriesCannotBeChangedThroughAReader() throws Exception {
+        DiaryEntry saved = service.saveEntry(TestData.entry(userId, "Original", EntryMood.HAPPY, NOON));
+
+        DiaryEntry first = service.getEntryById(saved.getId()).orElseThrow();
+        first.setTitle("Changed by a reader");
+        first.setContent("Changed content");
+        first.setMood(EntryMood.SAD);
+
+        DiaryEntry second = service.getEntryById(saved.getId()).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals("Original", second.getTitle());
+        assertEquals("Content of Original", second.getContent());
+        assertEquals(EntryMood.HAPPY, second.getMood());
+        assertEquals(NOON, second.getCreatedAt());
+        assertEquals(1, service.getCacheStats().get("entries").getHits());
+    }
+
+    @Test
+    void committedChunksOfAFailedImportAreShownAndSearchable() throws Exception {
+        // Cache the empty timeline and build the empty index first, so stale copies would show
+        assertTrue(service.getUserEntrySummaries(userId).isEmpty());
+        assertTrue(service.searchEntrySummaries(userId, "imported").isEmpty());
+        List<EntryChange> changes = new ArrayList<>();
+        service.addChangeListener(changes::add);
+
+        List<DiaryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            entries.add(TestData.entry(userId, "Imported " + i, EntryMood.NEUTRAL, NOON.plusMinutes(i)));
+        }
+        // Breaks the foreign key in the second chunk of 500
+        entries.get(550).setUserId(Long.MAX_VALUE);
+
+        PartialSaveException failure = assertThrows(PartialSaveException.class, () -> service.importEntries(entries));
+
+        assertEquals(500, failure.getSaved().size());
+        assertEquals(500, service.getUserEntrySummaries(userId).size());
+        assertEquals(500, service.searchEntrySummaries(userId, "imported").size());
+        assertEquals(1, changes.size());
+        assertEquals(EntryChange.Type.RELOADED, changes.get(0).getType());
+        assertEquals(userId, changes.get(0).getUserId());
+    }
+
+    @Test
+    void memoryImportSkipsDuplicatesAcrossChunksAndAnnouncesOnce(@TempDir Path directory) throws Exception {
+        service.saveEntry(TestData.entry(userId, "Already here", EntryMood.HAPPY, NOON));
+        writeMemoryFile(directory, "20240602_Already_here_1.txt", "Already here", NOON);
+        // More files than one import chunk holds
+        for (int i = 0; i < 1_100; i++) {
+            writeMemoryFile(directory, String.format("20240603_Restored_%04d.txt", i), "Restored " + i, NOON.plusDays(1).plusMinutes(i));
+        }
+        // Sorts last, so it is checked in a later chunk than the file it repeats
+        writeMemoryFile(directory, "zz_copy.txt", "Restored 0", NOON.plusDays(1));
+        List<EntryChange> changes = new ArrayList<>();
+        service.addChangeListener(changes::add);
+
+        MemoryImportResult result = service.importMemoryFiles(userId, directory, ExportProgressListener.NONE, () -> false);
+
+        assertEquals(1_100, result.getImportedCount());
+        assertEquals(2, result.getDuplicateCount());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(1_101, service.getUserEntrySummaries(userId).size());
+        assertEquals(1, changes.size());
+        assertEquals(EntryChange.Type.RELOADED, changes.get(0).getType());
+    }
+
+    private void writeMemoryFile(Path directory, String name, String title, LocalDateTime createdAt) throws Exception {
+        Files.writeString(directory.resolve(name),
+                MemoryFileFormat.render(TestData.entry(userId, title, EntryMood.NEUTRAL, createdAt)));
+    }
+}
@@ -0,0 +1,127 @@
+package dev.diary.service;
+
+import dev.diary.TestData;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.EntryMood;
+import dev.diary.model.MoodBucket;
+import dev.diary.model.MoodStreaks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoodAnalyticsServiceTest {
+    // A Monday
+    private static final LocalDate MONDAY = LocalDate.of(2024, 6, 3);
+
+    private final DiaryService diaryService = new DiaryService();
+    private final MoodAnalyticsService analytics = new MoodAnalyticsService(diaryService);
+    private Long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void rollingWindowCountsTheDaysEndingOnEachDay() throws Exception {
+        // The day before the range still falls inside the first windows
+        save(MONDAY.minusDays(1), EntryMood.NEUTRAL);
+        save(MONDAY, EntryMood.HAPPY);
+        save(MONDAY.plusDays(1), EntryMood.SAD);
+        save(MONDAY.plusDays(3), EntryMood.HAPPY);
+        save(MONDAY.plusDays(3), EntryMood.HAPPY);
+
+        List<MoodBucket> days = analytics.getRollingDistribution(userId, MONDAY, MONDAY.plusDays(4), 3);
+
+        assertEquals(5, days.size());
+        assertEquals(List.of(1, 0, 1), counts(days.get(0)));
+        assertEquals(List.of(1, 1, 1), counts(days.get(1)));
+        assertEquals(List.of(1, 1, 0), counts(days.get(2)));
+        assertEquals(List.of(2, 1, 0), counts(days.get(3)));
+        assertEquals(List.of(2, 0, 0), counts(days.get(4)));
+        assertEquals(MONDAY.plusDays(4), days.get(4).getStart());
+        assertThrows(IllegalArgumentException.class, () -> analytics.getRollingDistribution(userId, MONDAY, MONDAY, 0));
+    }
+
+    @Test
+    void streaksFollowConsecutiveDays() throws Exception {
+        LocalDate today = MONDAY.plusDays(10);
+        save(today.minusDays(6), EntryMood.HAPPY);
+        save(today.minusDays(5), EntryMood.HAPPY);
+        save(today.minusDays(4), EntryMood.SAD);
+        save(today.minusDays(1), EntryMood.HAPPY);
+        save(today, EntryMood.HAPPY);
+
+        MoodStreaks streaks = analytics.getStreaks(userId, today);
+        assertEquals(2, streaks.getCurrentDays());
+        assertEquals(3, streaks.getLongestDays());
+        assertEquals(today.minusDays(6), streaks.getLongestStart());
+        assertEquals(2, streaks.getLongestDays(EntryMood.HAPPY));
+        assertEquals(1, streaks.getLongestDays(EntryMood.SAD));
+        assertEquals(0, streaks.getLongestDays(EntryMood.ANXIOUS));
+
+        // Two days without an entry end the current streak
+        assertEquals(0, analytics.getStreaks(userId, today.plusDays(2)).getCurrentDays());
+    }
+
+    @Test
+    void noEntriesMeanNoStreak() throws Exception {
+        MoodStreaks streaks = analytics.getStreaks(userId, MONDAY);
+        assertEquals(0, streaks.getCurrentDays());
+        assertEquals(0, streaks.getLongestDays());
+        assertNull(streaks.getLongestStart());
+    }
+
+    @Test
+    void partialWeeksOnlyCountDaysInsideTheRange() throws Exception {
+        save(MONDAY, EntryMood.SAD);
+        save(MONDAY.plusDays(2), EntryMood.HAPPY);
+        save(MONDAY.plusDays(6), EntryMood.HAPPY);
+        save(MONDAY.plusDays(7), EntryMood.ANXIOUS);
+        save(MONDAY.plusDays(9), EntryMood.ANXIOUS);
+
+        // Wednesday to the following Tuesday
+        List<MoodBucket> weeks = analytics.getWeeklyCounts(userId, MONDAY.plusDays(2), MONDAY.plusDays(8));
+
+        assertEquals(2, weeks.size());
+        assertEquals(MONDAY, weeks.get(0).getStart());
+        assertEquals(2, weeks.get(0).getTotal());
+        assertEquals(0, weeks.get(0).getCount(EntryMood.SAD));
+        assertEquals(MONDAY.plusDays(7), weeks.get(1).getStart());
+        assertEquals(1, weeks.get(1).getCount(EntryMood.ANXIOUS));
+    }
+
+    @Test
+    void followsCreatesAndDeletesMadeThroughTheDiaryService() throws Exception {
+        save(MONDAY, EntryMood.HAPPY);
+        assertEquals(1, analytics.getTotals(userId, MONDAY, MONDAY).getTotal());
+
+        DiaryEntry added = save(MONDAY, EntryMood.SAD);
+        assertEquals(1, analytics.getTotals(userId, MONDAY, MONDAY).getCount(EntryMood.SAD));
+
+        diaryService.deleteEntry(userId, added.getId());
+        MoodBucket totals = analytics.getTotals(userId, MONDAY, MONDAY);
+        assertEquals(0, totals.getCount(EntryMood.SAD));
+        assertEquals(1, totals.getCount(EntryMood.HAPPY));
+    }
+
+    private DiaryEntry save(LocalDate day, EntryMood mood) throws Exception {
+        return diaryService.saveEntry(TestData.entry(userId, mood + " day", mood, day.atTime(12, 0)));
+    }
+
+    // HAPPY, SAD and NEUTRAL counts of a bucket
+    private static List<Integer> counts(MoodBucket bucket) {
+        List<Integer> counts = new ArrayList<>();
+        for (EntryMood mood : List.of(EntryMood.HAPPY, EntryMood.SAD, EntryMood.NEUTRAL)) {
+            counts.add(bucket.getCount(mood));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.diary.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordUtilsTest {
+
+    @Test
+    void verifyingGivesBackTheKeyDerivedWithTheHash() throws Exception {
+        PasswordKey hashed = PasswordUtils.hashWithKey("secret");
+        assertFalse(PasswordUtils.needsRehash(hashed.getHash()));
+
+        PasswordKey verified = PasswordUtils.verifyWithKey("secret", hashed.getHash());
+        assertNotNull(verified);
+        assertArrayEquals(hashed.getWrappingKey().getEncoded(), verified.getWrappingKey().getEncoded());
+        assertNull(PasswordUtils.verifyWithKey("Secret", hashed.getHash()));
+
+        // The stored verifier is not the key
+        String verifier = hashed.getHash().substring(hashed.getHash().lastIndexOf('$') + 1);
+        assertFalse(MessageDigest.isEqual(Base64.getDecoder().decode(verifier), hashed.getWrappingKey().getEncoded()));
+    }
+
+    @Test
+    void unsaltedHashesVerifyWithoutAKeyAndNeedRehashing() throws Exception {
+        String hash = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest("secret".getBytes(StandardCharsets.UTF_8)));
+
+        PasswordKey verified = PasswordUtils.verifyWithKey("secret", hash);
+        assertNotNull(verified);
+        assertNull(verified.getWrappingKey());
+        assertNull(PasswordUtils.verifyWithKey("wrong", hash));
+        assertTrue(PasswordUtils.needsRehash(hash));
+    }
+}
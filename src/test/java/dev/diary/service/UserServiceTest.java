@@ -0,0 +1,139 @@
+package dev.diary.service;
+
+import dev.diary.crypto.EntryKeys;
+import dev.diary.dao.UserDAO;
+import dev.diary.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserServiceTest {
+    private static final AtomicInteger USERS = new AtomicInteger();
+    private static final String PASSWORD = "correct horse";
+
+    private final UserService service = new UserService();
+    private String username;
+    private User loggedIn;
+
+    @BeforeEach
+    void register() throws Exception {
+        username = "login" + USERS.incrementAndGet() + "_" + System.nanoTime();
+        service.registerUser(username, PASSWORD, username + "@example.test");
+    }
+
+    @AfterEach
+    void logout() {
+        if (loggedIn != null) {
+            service.logout(loggedIn);
+        }
+    }
+
+    @Test
+    void loginHandsOutCopiesWithoutTheHash() throws Exception {
+        User first = service.authenticateUser(username, PASSWORD).orElseThrow();
+        loggedIn = first;
+        assertNull(first.getPasswordHash());
+        first.setUsername("changed by the caller");
+
+        User second = service.authenticateUser(username, PASSWORD).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals(username, second.getUsername());
+        assertNull(second.getPasswordHash());
+        assertEquals(first.getId(), second.getId());
+        assertTrue(service.authenticateUser(username, "wrong").isEmpty());
+        // The first login stored a new entry key, so only the third attempt is answered from the cache
+        assertEquals(1, service.getCacheStats().get("users").getHits());
+    }
+
+    @Test
+    void usernamesDifferingInCaseAreSeparateAccounts() throws Exception {
+        String upper = "Case" + username;
+        String lower = upper.toLowerCase(Locale.ROOT);
+        service.registerUser(upper, "upper password", upper + "@example.test");
+        // A miss for the other spelling must not be cached against it
+        assertTrue(service.authenticateUser(lower, "lower password").isEmpty());
+        service.registerUser(lower, "lower password", lower + "@example.test");
+
+        User first = service.authenticateUser(upper, "upper password").orElseThrow();
+        User second = service.authenticateUser(lower, "lower password").orElseThrow();
+        assertNotEquals(first.getId(), second.getId());
+        assertTrue(service.authenticateUser(lower, "upper password").isEmpty());
+        service.logout(first);
+        service.logout(second);
+    }
+
+    @Test
+    void cachedLoginSeesChangedSettings() throws Exception {
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+        service.setEntryEncryption(loggedIn, true);
+
+        assertTrue(service.authenticateUser(username, PASSWORD).orElseThrow().isEncryptEntries());
+    }
+
+    @Test
+    void availabilityChecksDoNotUseUpLoginAttempts() throws Exception {
+        int checks = 0;
+        try {
+            while (checks < 1_000) {
+                service.checkAvailability("free" + checks, "free" + checks + "@example.test");
+                checks++;
+            }
+        } catch (IllegalStateException limited) {
+            // The registration bucket is empty now
+        }
+        assertTrue(checks < 1_000);
+        assertThrows(IllegalStateException.class, () -> service.checkAvailability("one", "more@example.test"));
+
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+    }
+
+    @Test
+    void loginRunsTheKeyDerivationOnce() throws Exception {
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+        byte[] contentKey = EntryKeys.shared().get(loggedIn.getId()).getEncoded();
+        service.logout(loggedIn);
+
+        long before = service.getPasswordHashStats().getCompletedCount();
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+
+        assertEquals(1, service.getPasswordHashStats().getCompletedCount() - before);
+        assertArrayEquals(contentKey, EntryKeys.shared().get(loggedIn.getId()).getEncoded());
+    }
+
+    @Test
+    void unsaltedAccountIsUpgradedOnTheNextLogin() throws Exception {
+        UserDAO userDAO = new UserDAO();
+        Long userId = userDAO.findByUsername(username).orElseThrow().getId();
+        // What accounts from before salted hashing and entry encryption look like
+        String unsalted = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(PASSWORD.getBytes(StandardCharsets.UTF_8)));
+        userDAO.updateCredentials(userId, unsalted, null);
+
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+        byte[] contentKey = EntryKeys.shared().get(userId).getEncoded();
+
+        User stored = userDAO.findByUsername(username).orElseThrow();
+        assertFalse(PasswordUtils.needsRehash(stored.getPasswordHash()));
+        assertNotNull(stored.getEncryptionKey());
+
+        service.logout(loggedIn);
+        loggedIn = service.authenticateUser(username, PASSWORD).orElseThrow();
+        assertArrayEquals(contentKey, EntryKeys.shared().get(userId).getEncoded());
+    }
+}
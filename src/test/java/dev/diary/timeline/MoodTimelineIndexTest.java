@@ -0,0 +1,71 @@
+package dev.diary.timeline;
+
+import dev.diary.TestData;
+import dev.diary.dao.DiaryEntryDAO;
+import dev.diary.model.DiaryEntry;
+import dev.diary.model.DiaryEntrySummary;
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoodTimelineIndexTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 6, 2, 12, 0);
+    private static final LocalDate FROM = NOON.toLocalDate();
+    private static final LocalDate TO = FROM.plusDays(2);
+
+    private final DiaryEntryDAO dao = new DiaryEntryDAO();
+    private final MoodTimelineIndex index = new MoodTimelineIndex(dao);
+    private Long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        userId = TestData.newUser().getId();
+    }
+
+    @Test
+    void firstReadBuildsFromTheDatabase() throws Exception {
+        DiaryEntry first = save("First", EntryMood.HAPPY, NOON);
+        save("Second", EntryMood.SAD, NOON.plusDays(1));
+        // Not built yet, so this is left for the first read to load
+        index.index(DiaryEntrySummary.of(first));
+
+        assertEquals(2, (int) index.read(userId, timeline -> timeline.count(FROM, TO)));
+        assertArrayEquals(new byte[] {(byte) EntryMood.HAPPY.ordinal(), (byte) EntryMood.SAD.ordinal(), MoodTimeline.NO_ENTRIES},
+                index.read(userId, timeline -> timeline.dominantMoods(FROM, TO)));
+    }
+
+    @Test
+    void updatesApplyToABuiltTimeline() throws Exception {
+        DiaryEntry first = save("First", EntryMood.HAPPY, NOON);
+        DiaryEntry second = save("Second", EntryMood.SAD, NOON.plusDays(1));
+        assertEquals(2, (int) index.read(userId, timeline -> timeline.count(FROM, TO)));
+
+        // Moved to another day and mood
+        first.setMood(EntryMood.ANXIOUS);
+        first.setCreatedAt(NOON.plusDays(2));
+        index.index(DiaryEntrySummary.of(first));
+        // Indexing it again must not count it twice
+        index.index(DiaryEntrySummary.of(first));
+        DiaryEntry third = save("Third", EntryMood.SAD, NOON);
+        index.index(DiaryEntrySummary.of(third));
+        index.remove(userId, second.getId());
+
+        assertArrayEquals(new long[] {third.getId(), first.getId()}, index.read(userId, timeline -> timeline.ids(FROM, TO, null)));
+        assertArrayEquals(new long[] {first.getId()}, index.read(userId, timeline -> timeline.ids(FROM, TO, EntryMood.ANXIOUS)));
+        assertEquals(0, (int) index.read(userId, timeline -> timeline.count(FROM, TO, EntryMood.HAPPY)));
+
+        // Rebuilt from the database, which only has what was saved there
+        index.evict(userId);
+        assertEquals(3, (int) index.read(userId, timeline -> timeline.count(FROM, TO)));
+    }
+
+    private DiaryEntry save(String title, EntryMood mood, LocalDateTime createdAt) throws Exception {
+        return dao.save(TestData.entry(userId, title, mood, createdAt));
+    }
+}
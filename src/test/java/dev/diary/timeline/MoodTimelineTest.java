@@ -0,0 +1,132 @@
+package dev.diary.timeline;
+
+import dev.diary.model.EntryMood;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoodTimelineTest {
+    private static final LocalDate START = LocalDate.of(2024, 6, 1);
+    private static final EntryMood[] MOODS = EntryMood.values();
+
+    @Test
+    void matchesAPlainListThroughRandomInsertsAndRemovals() {
+        Random random = new Random(42);
+        MoodTimeline timeline = new MoodTimeline(0);
+        List<Point> expected = new ArrayList<>();
+        Set<Long> used = new HashSet<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            if (expected.isEmpty() || random.nextInt(4) > 0) {
+                // Random days and ids, so inserts land in the middle and between entries of one day
+                long id;
+                do {
+                    id = 1 + random.nextInt(1_000_000);
+                } while (!used.add(id));
+                Point point = new Point(id, START.plusDays(random.nextInt(30)), MOODS[random.nextInt(MOODS.length)]);
+                timeline.add(point.id, point.day, point.mood);
+                expected.add(point);
+                expected.sort(Point.ORDER);
+            } else {
+                Point point = expected.remove(random.nextInt(expected.size()));
+                assertTrue(timeline.remove(point.id));
+            }
+            assertEquals(expected.size(), timeline.size());
+
+            LocalDate from = START.plusDays(random.nextInt(34) - 2);
+            LocalDate to = from.plusDays(random.nextInt(12) - 2);
+            assertMatches(expected, timeline, from, to);
+        }
+        assertMatches(expected, timeline, START.minusDays(1), START.plusDays(31));
+        assertFalse(timeline.remove(0));
+    }
+
+    @Test
+    void emptyAndBackwardRangesFindNothing() {
+        MoodTimeline timeline = new MoodTimeline();
+        timeline.add(1, START, EntryMood.HAPPY);
+        timeline.add(2, START.plusDays(1), EntryMood.SAD);
+
+        LocalDate from = START.plusDays(1);
+        LocalDate to = START;
+        assertEquals(0, timeline.count(from, to));
+        assertEquals(0, timeline.count(from, to, EntryMood.SAD));
+        assertArrayEquals(new int[MOODS.length], timeline.countByMood(from, to));
+        assertArrayEquals(new long[0], timeline.ids(from, to, null));
+        assertArrayEquals(new long[0], timeline.ids(from, to, EntryMood.SAD));
+        assertArrayEquals(new byte[0], timeline.dominantMoods(from, to));
+        assertEquals(0, timeline.count(START.minusDays(5), START.minusDays(1)));
+    }
+
+    @Test
+    void dominantMoodTiesGoToTheEarlierDeclaredMood() {
+        MoodTimeline timeline = new MoodTimeline();
+        timeline.add(1, START, EntryMood.SAD);
+        timeline.add(2, START, EntryMood.HAPPY);
+        timeline.add(3, START, EntryMood.SAD);
+        timeline.add(4, START, EntryMood.HAPPY);
+        timeline.add(5, START.plusDays(1), EntryMood.ANXIOUS);
+        timeline.add(6, START.plusDays(1), EntryMood.NEUTRAL);
+        timeline.add(7, START.plusDays(3), EntryMood.EXCITED);
+        timeline.add(8, START.plusDays(3), EntryMood.EXCITED);
+        timeline.add(9, START.plusDays(3), EntryMood.HAPPY);
+
+        assertArrayEquals(new byte[] {
+                (byte) EntryMood.HAPPY.ordinal(),
+                (byte) EntryMood.NEUTRAL.ordinal(),
+                MoodTimeline.NO_ENTRIES,
+                (byte) EntryMood.EXCITED.ordinal()
+        }, timeline.dominantMoods(START, START.plusDays(3)));
+    }
+
+    private static void assertMatches(List<Point> expected, MoodTimeline timeline, LocalDate from, LocalDate to) {
+        List<Point> inRange = expected.stream()
+                .filter(point -> !point.day.isBefore(from) && !point.day.isAfter(to))
+                .toList();
+        assertEquals(inRange.size(), timeline.count(from, to));
+        assertArrayEquals(inRange.stream().mapToLong(point -> point.id).toArray(), timeline.ids(from, to, null));
+
+        int[] counts = new int[MOODS.length];
+        inRange.forEach(point -> counts[point.mood.ordinal()]++);
+        assertArrayEquals(counts, timeline.countByMood(from, to));
+        for (EntryMood mood : MOODS) {
+            assertEquals(counts[mood.ordinal()], timeline.count(from, to, mood));
+            assertArrayEquals(inRange.stream().filter(point -> point.mood == mood).mapToLong(point -> point.id).toArray(),
+                    timeline.ids(from, to, mood));
+        }
+        assertArrayEquals(dominantMoods(inRange, from, to), timeline.dominantMoods(from, to));
+    }
+
+    private static byte[] dominantMoods(List<Point> inRange, LocalDate from, LocalDate to) {
+        int days = (int) Math.max(0, to.toEpochDay() - from.toEpochDay() + 1);
+        byte[] cells = new byte[days];
+        for (int day = 0; day < days; day++) {
+            int[] counts = new int[MOODS.length];
+            LocalDate date = from.plusDays(day);
+            inRange.stream().filter(point -> point.day.equals(date)).forEach(point -> counts[point.mood.ordinal()]++);
+            byte best = MoodTimeline.NO_ENTRIES;
+            for (int m = 0; m < counts.length; m++) {
+                if (counts[m] > 0 && (best == MoodTimeline.NO_ENTRIES || counts[m] > counts[best])) {
+                    best = (byte) m;
+                }
+            }
+            cells[day] = best;
+        }
+        return cells;
+    }
+
+    private record Point(long id, LocalDate day, EntryMood mood) {
+        static final Comparator<Point> ORDER = Comparator.comparing(Point::day).thenComparingLong(Point::id);
+    }
+}